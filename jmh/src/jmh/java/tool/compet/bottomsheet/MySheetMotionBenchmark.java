@@ -0,0 +1,155 @@
+package tool.compet.bottomsheet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-event and per-frame cost of the sheet math under synthetic drag streams.
+ * Each stream is one gesture: down, a number of moves, then release.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MySheetMotionBenchmark {
+	private static final int HOST_HEIGHT = 1920;
+	private static final int HOST_WIDTH = 1080;
+
+	// Number of move events in a gesture
+	@Param({"16", "120"})
+	public int moveCount;
+
+	// Height of presented sheet, 1920 means full height sheet
+	@Param({"800", "1920"})
+	public int sheetHeight;
+
+	private MySheetMotion motion;
+	private final MySheetSpring spring = new MySheetSpring();
+	private float[] xs;
+	private float[] ys;
+	private float releaseVelocity;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		motion = new MySheetMotion();
+		motion.touchSlop = 24;
+		motion.minFlingVelocity = 150;
+		motion.setDefaultPeekKeyline(HOST_HEIGHT - HOST_WIDTH / (16f / 9f));
+		motion.setLayout(HOST_HEIGHT, 0, sheetHeight);
+
+		// A drag which goes up then wobbles back down, with a little horizontal noise
+		final Random random = new Random(7);
+		final int count = moveCount + 1;
+		xs = new float[count];
+		ys = new float[count];
+		float y = HOST_HEIGHT - motion.getPeekSheetTranslation() / 2;
+		for (int index = 0; index < count; ++index) {
+			xs[index] = HOST_WIDTH / 2f + random.nextFloat() * 8f;
+			ys[index] = y;
+			y += index < count * 2 / 3 ? -18f : 9f;
+		}
+		releaseVelocity = -1200f;
+	}
+
+	@Setup(Level.Iteration)
+	public void resetSheet() {
+		motion.state = MySheetMotion.STATE_PEEKED;
+		motion.translate(motion.getPeekSheetTranslation());
+		motion.onDown(xs[0], ys[0]);
+		cursor = 1;
+	}
+
+	/**
+	 * Cost of one move event, streams are replayed in a loop.
+	 */
+	@Benchmark
+	public float dragEvent() {
+		if (cursor == xs.length) {
+			resetSheet();
+		}
+		final int index = cursor++;
+		return onMove(motion, xs[index], ys[index]);
+	}
+
+	/**
+	 * Cost of a whole gesture: down, moves and settle choice at release.
+	 */
+	@Benchmark
+	public int gesture(Blackhole blackhole) {
+		final MySheetMotion motion = this.motion;
+		motion.state = MySheetMotion.STATE_PEEKED;
+		motion.translate(motion.getPeekSheetTranslation());
+		motion.onDown(xs[0], ys[0]);
+
+		float translation = motion.sheetTranslation;
+		for (int index = 1, count = xs.length; index < count; ++index) {
+			translation = onMove(motion, xs[index], ys[index]);
+			blackhole.consume(translation);
+		}
+		return motion.chooseSettle(translation, releaseVelocity);
+	}
+
+	/**
+	 * Cost of one animation frame: translate and read bounds which are given to transformers.
+	 */
+	@Benchmark
+	public void frame(Blackhole blackhole) {
+		final MySheetMotion motion = this.motion;
+		final float maxTranslation = motion.getMaxSheetTranslation();
+		final float translation = motion.translate(motion.sheetTranslation == maxTranslation ? 0 : motion.sheetTranslation + 1f);
+		blackhole.consume(translation);
+		blackhole.consume(motion.getPeekSheetTranslation());
+	}
+
+	/**
+	 * Cost of a whole settle after a fling release: spring steps at 60 fps until it rests.
+	 * Returned frame count tells how many frames the settle needs to render.
+	 */
+	@Benchmark
+	public int settle() {
+		final MySheetMotion motion = this.motion;
+		final MySheetSpring spring = this.spring;
+		spring.start(motion.getPeekSheetTranslation(), -releaseVelocity, motion.getMaxSheetTranslation());
+
+		int frameCount = 0;
+		while (spring.step(1 / 60f)) {
+			motion.translate(spring.value);
+			++frameCount;
+		}
+		return frameCount;
+	}
+
+	/**
+	 * Same steps as `MyBackgroundLayout.onTouchEvent()` does for a move event, without view work.
+	 */
+	private static float onMove(MySheetMotion motion, float x, float y) {
+		motion.claimTouch(x, y);
+		float newSheetTranslation = motion.dragTranslation(y);
+
+		if (motion.bottomSheetOwnsTouch) {
+			if (motion.isScrollingDownWhileExpanded(y)) {
+				newSheetTranslation = motion.detachFromTop(y);
+				motion.state = MySheetMotion.STATE_PEEKED;
+			}
+			if (motion.reachesTop(newSheetTranslation)) {
+				newSheetTranslation = motion.translate(motion.getMaxSheetTranslation());
+				motion.state = MySheetMotion.STATE_EXPANDED;
+			}
+			if (motion.state != MySheetMotion.STATE_EXPANDED) {
+				newSheetTranslation = motion.translate(motion.applyJello(newSheetTranslation));
+			}
+		}
+		return newSheetTranslation;
+	}
+}
@@ -0,0 +1,45 @@
+package tool.compet.bottomsheet;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures cold construction cost of sheets, which are often created at screen startup but shown later (or never).
+ * Construction must not query display or touch configuration, that is deferred to first show.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SheetConstructionBenchmark {
+	@Rule
+	public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+	private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+	@Test
+	@UiThreadTest
+	public void constructHost() {
+		final BenchmarkState state = benchmarkRule.getState();
+		while (state.keepRunning()) {
+			new MyBackgroundLayout(context);
+		}
+	}
+
+	@Test
+	@UiThreadTest
+	public void constructBottomSheet() {
+		final FrameLayout rootLayout = new FrameLayout(context);
+		final BenchmarkState state = benchmarkRule.getState();
+		while (state.keepRunning()) {
+			DkBottomSheet.newIns(context, rootLayout);
+		}
+	}
+}
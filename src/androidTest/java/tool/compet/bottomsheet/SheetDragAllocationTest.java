@@ -0,0 +1,159 @@
+package tool.compet.bottomsheet;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Drives a drag over a peeked sheet with MotionEvents and counts allocations of the main thread
+ * while the sheet follows the finger. Once the sheet owns the gesture, a move must not allocate.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SheetDragAllocationTest {
+	// Moves which are dispatched before counting: first one claims the gesture
+	private static final int CLAIM_MOVE_COUNT = 3;
+	private static final float CLAIM_DISTANCE = 100;
+
+	// Moves which are counted
+	private static final int STEADY_MOVE_COUNT = 100;
+	private static final float STEADY_MOVE_DISTANCE = 2;
+
+	private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+	private MyBackgroundLayout host;
+	private View sheetView;
+
+	// Translation Y of the sheet before and after counted moves of last drag
+	private float steadyStartTranslation;
+	private float steadyEndTranslation;
+
+	@Before
+	public void setUp() throws InterruptedException {
+		final Context context = instrumentation.getTargetContext();
+		final DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+
+		instrumentation.runOnMainSync(() -> {
+			final FrameLayout rootLayout = new FrameLayout(context);
+			host = new MyBackgroundLayout(context);
+			rootLayout.addView(host, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+			sheetView = new View(context);
+			sheetView.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+			host.animateShowSheet(sheetView);
+
+			// Root is not in a window, so lay it out by hand
+			rootLayout.measure(
+				View.MeasureSpec.makeMeasureSpec(displayMetrics.widthPixels, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(displayMetrics.heightPixels, View.MeasureSpec.EXACTLY));
+			rootLayout.layout(0, 0, displayMetrics.widthPixels, displayMetrics.heightPixels);
+
+			// Pre-draw which starts the peek does not come without a window
+			host.animatePeekSheet();
+		});
+		awaitSettled();
+		assertEquals(MyBackgroundLayout.State.PEEKED, host.getState());
+
+		// Warm up lazy state (velocity tracker, layer, listeners...)
+		drag();
+	}
+
+	@Test
+	public void steadyStateMoves_doNotAllocate() throws InterruptedException {
+		final long allocations = drag();
+
+		// Make sure the sheet did follow the counted moves, otherwise nothing was measured
+		assertNotEquals(steadyStartTranslation, steadyEndTranslation, 0);
+		assertEquals("Allocations while dragging", 0, allocations);
+	}
+
+	/**
+	 * Dispatch a drag which moves the sheet up from its peek then cancels it,
+	 * and wait until the sheet has settled back.
+	 *
+	 * @return Number of allocations of main thread while counted moves were dispatched.
+	 */
+	@SuppressWarnings("deprecation")
+	private long drag() throws InterruptedException {
+		final MotionEvent[] events = createGesture();
+		final long[] allocations = new long[1];
+
+		instrumentation.runOnMainSync(() -> {
+			final int steadyStart = CLAIM_MOVE_COUNT + 1;
+			final int steadyEnd = steadyStart + STEADY_MOVE_COUNT;
+
+			for (int index = 0; index < steadyStart; ++index) {
+				host.dispatchTouchEvent(events[index]);
+			}
+			steadyStartTranslation = sheetView.getTranslationY();
+
+			Debug.resetThreadAllocCount();
+			Debug.startAllocCounting();
+			for (int index = steadyStart; index < steadyEnd; ++index) {
+				host.dispatchTouchEvent(events[index]);
+			}
+			Debug.stopAllocCounting();
+			allocations[0] = Debug.getThreadAllocCount();
+			steadyEndTranslation = sheetView.getTranslationY();
+
+			host.dispatchTouchEvent(events[steadyEnd]);
+		});
+		for (MotionEvent event : events) {
+			event.recycle();
+		}
+		awaitSettled();
+		return allocations[0];
+	}
+
+	/**
+	 * @return Events of a drag: down inside the peeked sheet, moves up which claim the gesture,
+	 * steady moves up, then a cancel (so the sheet settles back to its peek).
+	 */
+	private MotionEvent[] createGesture() {
+		final int moveCount = CLAIM_MOVE_COUNT + STEADY_MOVE_COUNT;
+		final MotionEvent[] events = new MotionEvent[moveCount + 2];
+		final float x = host.getWidth() / 2f;
+		final float downY = host.getHeight() - host.getPeekSheetTranslation() / 2;
+		final long downTime = SystemClock.uptimeMillis();
+
+		events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, downY, 0);
+		float y = downY - CLAIM_DISTANCE;
+		for (int index = 1; index <= moveCount; ++index) {
+			events[index] = MotionEvent.obtain(downTime, downTime + index * 8L, MotionEvent.ACTION_MOVE, x, y, 0);
+			y -= STEADY_MOVE_DISTANCE;
+		}
+		events[moveCount + 1] = MotionEvent.obtain(downTime, downTime + (moveCount + 1) * 8L, MotionEvent.ACTION_CANCEL, x, y, 0);
+		return events;
+	}
+
+	/**
+	 * Wait until translation of the sheet stops changing.
+	 */
+	private void awaitSettled() throws InterruptedException {
+		final float[] translation = {Float.NaN};
+		int stableCount = 0;
+		for (int attempt = 0; attempt < 300 && stableCount < 5; ++attempt) {
+			Thread.sleep(16);
+			final float lastTranslation = translation[0];
+			instrumentation.runOnMainSync(() -> translation[0] = sheetView.getTranslationY());
+			stableCount = translation[0] == lastTranslation ? stableCount + 1 : 0;
+		}
+		if (stableCount < 5) {
+			throw new AssertionError("Sheet did not settle");
+		}
+	}
+}
@@ -1,37 +1,113 @@
 package tool.compet.bottomsheet;
 
 import android.content.Context;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
 
+import java.util.HashMap;
+
 /**
  * This class shows a View from bottom of the layout.
  * <pre><code>
  *    DkBottomSheet.newIns(context, layout).show(view);
+ *
+ *    // Or reuse warmed host and inflated sheet from a pool
+ *    DkBottomSheet.newIns(pool, layout).showWithSheet(R.layout.my_sheet);
  * </code></pre>
  */
 public class DkBottomSheet {
 	private final ViewGroup rootLayout;
-	private final MyBackgroundLayout backgroundLayout;
+	final MyBackgroundLayout backgroundLayout;
+
+	// Pool which the host and sheets come from, null if not pooled
+	private final DkSheetPool pool;
+
+	// Layout of pooled sheets which were shown via `showWithSheet(int)` and are not removed yet
+	private final HashMap<View, Integer> pooledSheetLayoutIds = new HashMap<>();
 
 	public DkBottomSheet(Context context, ViewGroup layout) {
+		this(layout, new MyBackgroundLayout(context), null);
+	}
+
+	private DkBottomSheet(ViewGroup layout, MyBackgroundLayout backgroundLayout, DkSheetPool pool) {
 		this.rootLayout = layout;
-		this.backgroundLayout = new MyBackgroundLayout(context);
+		this.backgroundLayout = backgroundLayout;
+		this.pool = pool;
+
+		if (pool != null) {
+			// Give back the removed (dismissed or swapped) sheet, so next show of same layout can reuse it
+			backgroundLayout.onSheetRemovedListener = sheetView -> {
+				final Integer sheetLayoutId = this.pooledSheetLayoutIds.remove(sheetView);
+				if (sheetLayoutId != null) {
+					pool.recycleSheet(sheetLayoutId, sheetView);
+				}
+			};
+		}
 	}
 
 	public static DkBottomSheet newIns(Context context, ViewGroup layout) {
 		return new DkBottomSheet(context, layout);
 	}
 
+	/**
+	 * Create new sheet with a warmed host from given pool. Call `release()` when this sheet
+	 * is no longer used, so the host goes back to the pool.
+	 */
+	public static DkBottomSheet newIns(DkSheetPool pool, ViewGroup layout) {
+		return new DkBottomSheet(layout, pool.obtainHost(), pool);
+	}
+
+	/**
+	 * Show given sheet. The host is attached to the root layout at first show, and stays attached
+	 * (invisible while no sheet is presented) until `release()`, so later shows do not relayout the root.
+	 */
 	public void showWithSheet(View sheetView) {
 		final MyBackgroundLayout backgroundLayout = this.backgroundLayout;
-		this.rootLayout.addView(backgroundLayout);
+		if (backgroundLayout.getParent() == null) {
+			this.rootLayout.addView(backgroundLayout, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		}
 
 		backgroundLayout.animateShowSheet(sheetView);
 	}
 
+	/**
+	 * Show a sheet of given layout. If this sheet was created from a pool, the sheet view is taken from
+	 * that pool and is given back to it after dismissed.
+	 */
+	public void showWithSheet(@LayoutRes int sheetLayoutId) {
+		final View sheetView = this.pool != null
+			? this.pool.obtainSheet(sheetLayoutId)
+			: LayoutInflater.from(this.backgroundLayout.getContext()).inflate(sheetLayoutId, this.backgroundLayout, false);
+
+		if (this.pool != null) {
+			this.pooledSheetLayoutIds.put(sheetView, sheetLayoutId);
+		}
+		showWithSheet(sheetView);
+	}
+
+	/**
+	 * Detach the host from the root layout. If this sheet was created from a pool,
+	 * the host goes back to the pool, so this instance must not be used after that.
+	 * If a sheet is showing, it is dismissed first and the host is released after the sheet was removed.
+	 */
+	public void release() {
+		final MyBackgroundLayout backgroundLayout = this.backgroundLayout;
+		if (backgroundLayout.isSheetShowing()) {
+			backgroundLayout.animateDismissSheet(this::release);
+			return;
+		}
+		if (backgroundLayout.getParent() != null) {
+			this.rootLayout.removeView(backgroundLayout);
+		}
+		if (this.pool != null) {
+			this.pool.recycleHost(backgroundLayout);
+		}
+	}
+
 	// region Get/Set
 
 	/**
@@ -39,6 +115,8 @@ public class DkBottomSheet {
 	 * This settings defaults to true and should only be changed if you know that putting the
 	 * sheet in a layer will negatively effect performance. One such example is if the sheet contains
 	 * a view which needs to frequently be re-drawn.
+	 * Even if enabled, a layer is only used while the sheet content is mostly static and
+	 * the layer fits the memory budget (see `setLayerMemoryBudget()`), and it is released when the sheet is idle.
 	 *
 	 * @param use whether or not to use a hardware layer.
 	 */
@@ -46,6 +124,80 @@ public class DkBottomSheet {
 		this.backgroundLayout.useHardwareLayerWhileAnimating = use;
 	}
 
+	/**
+	 * Set heights where the sheet can rest. When released, the sheet settles at the detent nearest to where
+	 * it would stop with release velocity, so a single fling can go over multiple detents.
+	 * A custom peek height (if set) is kept as one more detent. Detents at or over full height are ignored,
+	 * and if no detent is under full height, the sheet rests at peek height and full height as without detents.
+	 * Pass null to rest at peek height and full height only (default).
+	 */
+	public void setDetents(DkSheetDetents detents) {
+		this.backgroundLayout.detents = detents;
+		this.backgroundLayout.requestLayout();
+	}
+
+	/**
+	 * Set the spring which settles the sheet (peek, expand, dismiss) after release or on show.
+	 * Defaults to stiffness 800 and damping ratio 1 (critical damping, no bounce).
+	 * The new spring applies from next frame, also to a running settle.
+	 *
+	 * @param stiffness Stiffness of the spring, must be positive. Higher value settles faster.
+	 * @param dampingRatio Damping ratio, must be positive. Under 1 bounces around the target, over 1 settles slower without bouncing.
+	 */
+	public void setSettleSpring(float stiffness, float dampingRatio) {
+		if (stiffness <= 0 || dampingRatio <= 0) {
+			throw new IllegalArgumentException("Stiffness and damping ratio must be positive");
+		}
+		final MySheetSpring spring = this.backgroundLayout.sheetSpring;
+		spring.setStiffness(stiffness);
+		spring.setDampingRatio(dampingRatio);
+	}
+
+	/**
+	 * Enable or disable swapping in place. When enabled, showing a sheet while another sheet is presented
+	 * does not dismiss the presented sheet first: the host and scrim stay, the sheets cross-fade and
+	 * the height animates from old sheet to new sheet in one animation. Defaults to false.
+	 */
+	public void setSwapInPlace(boolean swapInPlace) {
+		this.backgroundLayout.swapInPlace = swapInPlace;
+	}
+
+	/**
+	 * Enable or disable culling of content which is covered by the sheet. When an opaque sheet has settled,
+	 * views under the sheet (siblings of the sheet host) are clipped to their uncovered region (empty region
+	 * if they are fully covered), their visibility is never changed. Views which have focus or contain
+	 * a SurfaceView or TextureView are not clipped. Clip bounds are restored as soon as the sheet moves.
+	 * It only saves GPU fill of covered pixels, covered views still record their drawing when invalidated.
+	 * This setting defaults to false since it changes clip bounds of views which the app owns.
+	 */
+	public void setCullCoveredContent(boolean cull) {
+		this.backgroundLayout.cullCoveredContent = cull;
+	}
+
+	/**
+	 * Enable or disable system trace sections and counters of all sheets (show, layout, drag, settle, dismiss, inflation).
+	 * Even if enabled, nothing is emitted while no tracer (Perfetto, systrace) is recording. Defaults to false.
+	 */
+	public static void setTraceEnabled(boolean enabled) {
+		MySheetTrace.enabled = enabled;
+	}
+
+	/**
+	 * Set max total bytes of hardware layers which are held by all sheets in the process, a sheet is not put
+	 * in a layer if that would exceed this budget. Defaults to 16 MB.
+	 */
+	public static void setLayerMemoryBudget(long bytes) {
+		MySheetLayerPolicy.setMemoryBudget(bytes);
+	}
+
+	/**
+	 * Attach a collector of performance metrics (show latency, animation frames, input-to-frame latency).
+	 * Pass null to detach, when detached, the sheet does not measure anything.
+	 */
+	public void setMetrics(DkSheetMetrics metrics) {
+		this.backgroundLayout.metrics = metrics;
+	}
+
 	/**
 	 * Adds an {@link MyBackgroundLayout.OnSheetStateChangeListener} which will be notified when the state of the presented sheet changes.
 	 * The listener will not be automatically removed, so remember to remove it when it's no longer needed
@@ -68,6 +220,56 @@ public class DkBottomSheet {
 		this.backgroundLayout.onSheetDismissedListeners.add(listener);
 	}
 
+	/**
+	 * Adds an {@link MyBackgroundLayout.OnSheetSlideListener} which will be notified each time the sheet is translated.
+	 *
+	 * @param listener the listener to be notified.
+	 */
+	public void addOnSheetSlideListener(@NonNull MyBackgroundLayout.OnSheetSlideListener listener) {
+		this.backgroundLayout.onSheetSlideListeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously added {@link MyBackgroundLayout.OnSheetSlideListener}.
+	 *
+	 * @param listener the listener to be removed.
+	 */
+	public void removeOnSheetSlideListener(@NonNull MyBackgroundLayout.OnSheetSlideListener listener) {
+		this.backgroundLayout.onSheetSlideListeners.remove(listener);
+	}
+
+	/**
+	 * Adds an {@link MyBackgroundLayout.OnSheetProgressListener} which will be notified at most once per frame
+	 * with the latest progress and state, no matter how many changes happened during that frame.
+	 *
+	 * @param listener the listener to be notified.
+	 * @param maxRateHz max number of notifications per second for this listener, 0 to be notified at each frame.
+	 * Skipped values are notified later, and state changes are not skipped.
+	 */
+	public void addOnSheetProgressListener(@NonNull MyBackgroundLayout.OnSheetProgressListener listener, int maxRateHz) {
+		this.backgroundLayout.progressDispatcher.subscribe(listener, maxRateHz);
+	}
+
+	/**
+	 * Removes a previously added {@link MyBackgroundLayout.OnSheetProgressListener}.
+	 *
+	 * @param listener the listener to be removed.
+	 */
+	public void removeOnSheetProgressListener(@NonNull MyBackgroundLayout.OnSheetProgressListener listener) {
+		this.backgroundLayout.progressDispatcher.unsubscribe(listener);
+	}
+
+	/**
+	 * Set hysteresis of the state which is reported to {@link MyBackgroundLayout.OnSheetProgressListener}:
+	 * while dragging, reported state stays EXPANDED until the sheet moves away from the top by given distance.
+	 * This avoids flapping of reported state when the finger moves around the top. Defaults to 0 (disabled).
+	 *
+	 * @param hysteresis distance in pixels.
+	 */
+	public void setStateHysteresis(float hysteresis) {
+		this.backgroundLayout.progressDispatcher.setHysteresis(hysteresis);
+	}
+
 	/**
 	 * Removes a previously added {@link MyBackgroundLayout.OnSheetStateChangeListener}.
 	 *
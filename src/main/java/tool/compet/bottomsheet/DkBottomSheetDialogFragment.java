@@ -4,9 +4,11 @@ import android.app.Activity;
 import android.app.Application;
 import android.content.Context;
 import android.os.Bundle;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -44,6 +46,23 @@ public abstract class DkBottomSheetDialogFragment<B extends ViewDataBinding>
 		return true;
 	}
 
+	/**
+	 * Opt-in to inflate the layout (and precompute its texts) on a worker thread.
+	 * A cheap placeholder from `onCreatePlaceholderView()` is shown until the content is ready,
+	 * then `onContentReady()` is called. Note that `binder` is null until then.
+	 */
+	protected boolean enableAsyncInflation() {
+		return false;
+	}
+
+	/**
+	 * Collector of performance metrics, open-to-first-content latency of this sheet is recorded into it.
+	 * Return null (default) to measure nothing.
+	 */
+	protected DkSheetMetrics sheetMetrics() {
+		return null;
+	}
+
 	@Override
 	public int fragmentContainerId() {
 		return 0;
@@ -64,6 +83,9 @@ public abstract class DkBottomSheetDialogFragment<B extends ViewDataBinding>
 	// Binder for databinding (to initialize child views instead of findViewById())
 	public B binder;
 
+	// Increased when view is destroyed, to drop async inflation which was started for old view
+	private int asyncInflationGeneration;
+
 	@Override
 	public void onAttach(@NonNull Context context) {
 		if (BuildConfig.DEBUG) {
@@ -115,17 +137,30 @@ public abstract class DkBottomSheetDialogFragment<B extends ViewDataBinding>
 			DkLogcats.info(this, "onCreateView");
 		}
 
+		final DkSheetMetrics metrics = sheetMetrics();
+		final long openStartNanos = metrics != null ? System.nanoTime() : 0;
+
 		int layoutId = layoutResourceId();
+		if (layoutId > 0 && enableAsyncInflation()) {
+			return inflateAsync(inflater, container, layoutId, metrics, openStartNanos);
+		}
 		if (layoutId > 0) {
-			if (enableDataBinding()) {
-				// Pass `false` to indicate don't attach this layout to parent
-				this.binder = DataBindingUtil.inflate(inflater, layoutId, container, false);
-				this.layout = this.binder.getRoot();
+			final boolean traced = MySheetTrace.begin(MySheetTrace.INFLATE);
+			try {
+				if (enableDataBinding()) {
+					// Pass `false` to indicate don't attach this layout to parent
+					this.binder = DataBindingUtil.inflate(inflater, layoutId, container, false);
+					this.layout = this.binder.getRoot();
+				}
+				else {
+					// Pass `false` to indicate don't attach this layout to parent
+					this.layout = inflater.inflate(layoutId, container, false);
+				}
 			}
-			else {
-				// Pass `false` to indicate don't attach this layout to parent
-				this.layout = inflater.inflate(layoutId, container, false);
+			finally {
+				MySheetTrace.end(traced);
 			}
+			recordOpenToContent(metrics, openStartNanos);
 		}
 		else {
 			DkLogcats.notice(this, "Fragment %s has no layout?", getClass().getName());
@@ -134,6 +169,69 @@ public abstract class DkBottomSheetDialogFragment<B extends ViewDataBinding>
 		return this.layout;
 	}
 
+	private View inflateAsync(LayoutInflater inflater, @Nullable ViewGroup container, int layoutId, DkSheetMetrics metrics, long openStartNanos) {
+		final FrameLayout asyncContainer = new FrameLayout(inflater.getContext());
+		asyncContainer.addView(onCreatePlaceholderView(inflater, container));
+		this.layout = asyncContainer;
+
+		final int generation = ++this.asyncInflationGeneration;
+
+		MyAsyncInflater.inflate(inflater, layoutId, asyncContainer, this::onPrecomputeContent, inflatedLayout -> {
+			// View was destroyed while inflating
+			if (generation != this.asyncInflationGeneration || getView() != asyncContainer) {
+				return;
+			}
+			// Binding must be created on main thread since it is bound to main Choreographer
+			if (enableDataBinding()) {
+				this.binder = DataBindingUtil.bind(inflatedLayout);
+			}
+			asyncContainer.removeAllViews();
+			asyncContainer.addView(inflatedLayout);
+			this.layout = inflatedLayout;
+
+			onContentReady(inflatedLayout);
+			recordOpenToContent(metrics, openStartNanos);
+		});
+
+		return asyncContainer;
+	}
+
+	/**
+	 * Content has been set, it is drawn by next frame.
+	 */
+	private static void recordOpenToContent(DkSheetMetrics metrics, long openStartNanos) {
+		if (metrics != null) {
+			Choreographer.getInstance().postFrameCallback(frameTimeNanos -> {
+				metrics.openToContentMicros.record((frameTimeNanos - openStartNanos) / 1000);
+			});
+		}
+	}
+
+	/**
+	 * Only for async inflation mode. Create a cheap view which is shown until the content is ready.
+	 * By default, it is an empty view which takes one third of screen height.
+	 */
+	protected View onCreatePlaceholderView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container) {
+		final View placeholder = new View(inflater.getContext());
+		placeholder.setMinimumHeight(inflater.getContext().getResources().getDisplayMetrics().heightPixels / 3);
+		return placeholder;
+	}
+
+	/**
+	 * Only for async inflation mode. Called on worker thread after the layout was inflated,
+	 * subclass can precompute measurable content of the layout here (texts are precomputed already).
+	 * Note: the layout is not attached yet, do not touch other views from here.
+	 */
+	protected void onPrecomputeContent(@NonNull View layout) {
+	}
+
+	/**
+	 * Only for async inflation mode. Called on main thread when the real content has replaced the placeholder,
+	 * `layout` and `binder` are available from here.
+	 */
+	protected void onContentReady(@NonNull View layout) {
+	}
+
 	@Override
 	public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
 		if (BuildConfig.DEBUG) {
@@ -190,6 +288,7 @@ public abstract class DkBottomSheetDialogFragment<B extends ViewDataBinding>
 		if (BuildConfig.DEBUG) {
 			DkLogcats.info(this, "onDestroyView");
 		}
+		++this.asyncInflationGeneration;
 		super.onDestroyView();
 	}
 
@@ -0,0 +1,69 @@
+package tool.compet.bottomsheet;
+
+import android.content.Context;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Bottom sheet of a long list. The sheet is a RecyclerView which only binds rows of the visible part
+ * of the sheet: rows of the peek height while PEEKED, then more rows in step with the drag while expanding.
+ * So showing a list of hundreds of rows costs about the same as showing a list of a few rows.
+ * The sheet is as tall as its rows, but not taller than the host: a short list is not stretched to full height.
+ * To measure that height, first rows are measured (not laid out) up to the visible height of the sheet,
+ * a longer list is taken as full height.
+ * <pre><code>
+ *    DkListBottomSheet.newIns(context, layout)
+ *       .setAdapter(adapter)
+ *       .show();
+ * </code></pre>
+ */
+public class DkListBottomSheet extends DkBottomSheet {
+	private final RecyclerView recyclerView;
+	private final MyViewportLayoutManager layoutManager;
+
+	public DkListBottomSheet(Context context, ViewGroup layout) {
+		super(context, layout);
+
+		final RecyclerView recyclerView = this.recyclerView = new RecyclerView(context);
+		final MyViewportLayoutManager layoutManager = this.layoutManager = new MyViewportLayoutManager(context, this.backgroundLayout, recyclerView);
+
+		// List wraps its rows up to height of the host, its size follows adapter data, so it is not fixed
+		recyclerView.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+		recyclerView.setLayoutManager(layoutManager);
+
+		// Part below the screen edge is bottom padding, rows which are laid out ahead into it must be drawn
+		recyclerView.setClipToPadding(false);
+
+		addOnSheetSlideListener((translation, progress) -> layoutManager.onViewportChanged());
+		addOnSheetStateChangeListener(state -> layoutManager.onViewportChanged());
+	}
+
+	public static DkListBottomSheet newIns(Context context, ViewGroup layout) {
+		return new DkListBottomSheet(context, layout);
+	}
+
+	public DkListBottomSheet setAdapter(RecyclerView.Adapter<?> adapter) {
+		this.recyclerView.setAdapter(adapter);
+		return this;
+	}
+
+	/**
+	 * Show the list sheet.
+	 */
+	public void show() {
+		showWithSheet(this.recyclerView);
+	}
+
+	/**
+	 * @return The list which is the sheet, use it to add item decorations, set background,...
+	 * Note: its layout manager must not be replaced, and its bottom padding is changed at each layout
+	 * (the part below the screen edge is added to own padding).
+	 */
+	@NonNull
+	public RecyclerView getRecyclerView() {
+		return this.recyclerView;
+	}
+}
@@ -0,0 +1,121 @@
+package tool.compet.bottomsheet;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.IdRes;
+
+import java.util.Arrays;
+
+/**
+ * Heights where the sheet can rest, in addition to the full height (expanded).
+ * The lowest detent plays the role of peek height. Detents are resolved to translations once per layout.
+ * <pre><code>
+ *    DkSheetDetents detents = DkSheetDetents.newIns()
+ *       .addFraction(0.5f)          // half of max height
+ *       .addPixels(320)             // 320 px
+ *       .addAnchor(R.id.actions);   // show the sheet until bottom of this view
+ *    bottomSheet.setDetents(detents);
+ * </code></pre>
+ */
+public class DkSheetDetents {
+	private static final int KIND_ANCHOR = -1;
+
+	// Configured detents, anchor values are view ids
+	private int[] kinds = new int[0];
+	private float[] values = new float[0];
+	private int[] anchorIds = new int[0];
+
+	// Resolved detents for motion, arrays are replaced only when resolved values change
+	int[] resolvedKinds = MySheetGeometry.NO_DETENT_KINDS;
+	float[] resolvedValues = MySheetGeometry.NO_DETENT_VALUES;
+
+	public static DkSheetDetents newIns() {
+		return new DkSheetDetents();
+	}
+
+	/**
+	 * @param fraction Fraction of max height of the sheet, in range (0, 1).
+	 */
+	public DkSheetDetents addFraction(float fraction) {
+		return add(MySheetGeometry.DETENT_FRACTION, fraction, 0);
+	}
+
+	/**
+	 * @param height Visible height of the sheet in pixels.
+	 */
+	public DkSheetDetents addPixels(float height) {
+		return add(MySheetGeometry.DETENT_PIXELS, height, 0);
+	}
+
+	/**
+	 * @param anchorViewId Id of a view inside the sheet, the sheet rests where bottom of that view is visible.
+	 */
+	public DkSheetDetents addAnchor(@IdRes int anchorViewId) {
+		return add(KIND_ANCHOR, 0, anchorViewId);
+	}
+
+	private DkSheetDetents add(int kind, float value, int anchorId) {
+		final int count = kinds.length;
+		this.kinds = Arrays.copyOf(kinds, count + 1);
+		this.values = Arrays.copyOf(values, count + 1);
+		this.anchorIds = Arrays.copyOf(anchorIds, count + 1);
+		this.kinds[count] = kind;
+		this.values[count] = value;
+		this.anchorIds[count] = anchorId;
+		this.resolvedKinds = MySheetGeometry.NO_DETENT_KINDS;
+		return this;
+	}
+
+	/**
+	 * Resolve anchors against given sheet. Called once per layout pass.
+	 */
+	void resolve(View sheetView) {
+		final int[] kinds = this.kinds;
+		final int count = kinds.length;
+		boolean changed = resolvedKinds.length != count;
+
+		if (changed) {
+			resolvedKinds = new int[count];
+			resolvedValues = new float[count];
+			for (int index = 0; index < count; ++index) {
+				resolvedKinds[index] = kinds[index] == KIND_ANCHOR ? MySheetGeometry.DETENT_PIXELS : kinds[index];
+				resolvedValues[index] = values[index];
+			}
+		}
+		for (int index = 0; index < count; ++index) {
+			if (kinds[index] != KIND_ANCHOR) {
+				continue;
+			}
+			final float anchorBottom = findAnchorBottom(sheetView, anchorIds[index]);
+			if (resolvedValues[index] != anchorBottom) {
+				// Give motion new array so it knows the change
+				if (! changed) {
+					resolvedValues = Arrays.copyOf(resolvedValues, count);
+					changed = true;
+				}
+				resolvedValues[index] = anchorBottom;
+			}
+		}
+	}
+
+	/**
+	 * @return Bottom of the anchor in sheet coordinates, or 0 (ignored) if the anchor is not found.
+	 */
+	private static float findAnchorBottom(View sheetView, int anchorId) {
+		View view = sheetView == null ? null : sheetView.findViewById(anchorId);
+		if (view == null || view.getVisibility() == View.GONE) {
+			return 0;
+		}
+		int bottom = view.getHeight();
+		while (view != sheetView) {
+			bottom += view.getTop();
+			if (! (view.getParent() instanceof ViewGroup)) {
+				return 0;
+			}
+			view = (View) view.getParent();
+			bottom -= view.getScrollY();
+		}
+		return bottom;
+	}
+}
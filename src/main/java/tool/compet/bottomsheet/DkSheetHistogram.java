@@ -0,0 +1,98 @@
+package tool.compet.bottomsheet;
+
+import java.util.Arrays;
+
+/**
+ * Compact histogram of non-negative long values with primitive storage, recording does not allocate.
+ * Values under 16 have own bucket, larger values are grouped by power of two, with 8 linear
+ * sub-buckets each, so relative error of a percentile is at most 12.5%.
+ */
+public class DkSheetHistogram {
+	private static final int LINEAR_BUCKET_COUNT = 16;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = LINEAR_BUCKET_COUNT + (64 - 4) * SUB_BUCKET_COUNT;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long totalCount;
+	private long sum;
+	private long max;
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		++counts[indexOf(value)];
+		++totalCount;
+		sum += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public long getCount() {
+		return totalCount;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * @param percentile Percentile in range [0, 100], for eg,. 50, 90, 99.
+	 * @return Upper bound of the bucket which contains given percentile, or 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long seen = 0;
+		for (int index = 0; index < BUCKET_COUNT; ++index) {
+			seen += counts[index];
+			if (seen >= rank) {
+				return Math.min(max, upperBoundOf(index));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Export values at given percentiles into given array.
+	 */
+	public void exportPercentiles(double[] percentiles, long[] out) {
+		for (int index = percentiles.length - 1; index >= 0; --index) {
+			out[index] = getValueAtPercentile(percentiles[index]);
+		}
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	private static int indexOf(long value) {
+		if (value < LINEAR_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return LINEAR_BUCKET_COUNT + (exponent - 4) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long upperBoundOf(int index) {
+		if (index < LINEAR_BUCKET_COUNT) {
+			return index;
+		}
+		final int exponent = (index - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + 4;
+		final int subBucket = (index - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		final long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
@@ -0,0 +1,58 @@
+package tool.compet.bottomsheet;
+
+/**
+ * Collects performance metrics of a sheet into compact histograms. Attach it via `DkBottomSheet.setMetrics()`,
+ * when nothing is attached, the sheet only pays a null check.
+ * <pre><code>
+ *    DkSheetMetrics metrics = new DkSheetMetrics();
+ *    bottomSheet.setMetrics(metrics);
+ *    ...
+ *    long p90 = metrics.showLatencyMicros.getValueAtPercentile(90);
+ * </code></pre>
+ */
+public class DkSheetMetrics {
+	// Time from `showWithSheet()` to the first frame of the PEEKED sheet
+	public final DkSheetHistogram showLatencyMicros = new DkSheetHistogram();
+
+	// Number of frames rendered per settle animation (peek, expand, dismiss)
+	public final DkSheetHistogram animationFrameCounts = new DkSheetHistogram();
+
+	// Number of frames which were dropped per settle animation
+	public final DkSheetHistogram animationDroppedFrameCounts = new DkSheetHistogram();
+
+	// Time from a drag event to the frame which draws its result
+	public final DkSheetHistogram inputToFrameMicros = new DkSheetHistogram();
+
+	// Time from creating view of a sheet fragment to the first frame which draws its real content
+	// (not the placeholder of async inflation)
+	public final DkSheetHistogram openToContentMicros = new DkSheetHistogram();
+
+	/**
+	 * Export percentiles of all histograms as text, for eg,. to attach to a report.
+	 */
+	public String export(double... percentiles) {
+		final StringBuilder builder = new StringBuilder(256);
+		append(builder, "showLatencyMicros", showLatencyMicros, percentiles);
+		append(builder, "animationFrameCounts", animationFrameCounts, percentiles);
+		append(builder, "animationDroppedFrameCounts", animationDroppedFrameCounts, percentiles);
+		append(builder, "inputToFrameMicros", inputToFrameMicros, percentiles);
+		append(builder, "openToContentMicros", openToContentMicros, percentiles);
+		return builder.toString();
+	}
+
+	public void reset() {
+		showLatencyMicros.reset();
+		animationFrameCounts.reset();
+		animationDroppedFrameCounts.reset();
+		inputToFrameMicros.reset();
+		openToContentMicros.reset();
+	}
+
+	private static void append(StringBuilder builder, String name, DkSheetHistogram histogram, double[] percentiles) {
+		builder.append(name).append(": count=").append(histogram.getCount());
+		for (double percentile : percentiles) {
+			builder.append(", p").append(percentile).append('=').append(histogram.getValueAtPercentile(percentile));
+		}
+		builder.append(", max=").append(histogram.getMax()).append('\n');
+	}
+}
@@ -0,0 +1,310 @@
+package tool.compet.bottomsheet;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps warmed sheet hosts and already-inflated sheet views, so frequent sheets are not rebuilt at each show.
+ * Sheet views are keyed by their layout, and evicted in LRU order of layouts when the pool is full.
+ * The pool reacts to memory pressure and configuration change by dropping pooled views.
+ *
+ * Views hold given context, so create a pool per screen (Activity). If that context has a lifecycle
+ * (ComponentActivity), the pool is released when it is destroyed, otherwise call `release()` at that time.
+ * Pooled sheet views keep their state, set `setOnSheetRecycleListener()` to reset a layout's views when they come back.
+ * This class must be used on main thread.
+ * <pre><code>
+ *    DkSheetPool pool = DkSheetPool.newIns(activity);
+ *    pool.setOnSheetRecycleListener(R.layout.my_sheet, sheetView -> ((EditText) sheetView.findViewById(R.id.input)).setText(null));
+ *    DkBottomSheet.newIns(pool, layout).showWithSheet(R.layout.my_sheet);
+ * </code></pre>
+ */
+public class DkSheetPool implements ComponentCallbacks2 {
+	private static final int DEFAULT_MAX_HOST_COUNT = 2;
+	private static final int DEFAULT_MAX_SHEET_COUNT = 8;
+
+	private final Context context;
+	private final int maxHostCount;
+	private final int maxSheetCount;
+
+	private final ArrayDeque<MyBackgroundLayout> hosts = new ArrayDeque<>();
+
+	// Access-ordered: eldest entry is the least recently used layout
+	private final LinkedHashMap<Integer, ArrayDeque<View>> sheets = new LinkedHashMap<>(8, 0.75f, true);
+	private int sheetCount;
+
+	// Parent which sheets are inflated against, so their layout params are parsed from xml
+	private FrameLayout inflateParent;
+
+	// Resetters of sheet views per layout
+	private final SparseArray<TheOnSheetRecycleListener> sheetRecycleListeners = new SparseArray<>();
+
+	// Memory and configuration events come from the application, which does not hold this pool (and its context)
+	private final MyPoolCallbacks poolCallbacks;
+	private final LifecycleEventObserver lifecycleObserver = (source, event) -> {
+		if (event == Lifecycle.Event.ON_DESTROY) {
+			release();
+		}
+	};
+
+	// Statistics
+	private int hostHitCount;
+	private int hostMissCount;
+	private int sheetHitCount;
+	private int sheetMissCount;
+
+	public DkSheetPool(Context context, int maxHostCount, int maxSheetCount) {
+		this.context = context;
+		this.maxHostCount = maxHostCount;
+		this.maxSheetCount = maxSheetCount;
+		this.poolCallbacks = new MyPoolCallbacks(this);
+
+		context.getApplicationContext().registerComponentCallbacks(poolCallbacks);
+		if (context instanceof LifecycleOwner) {
+			((LifecycleOwner) context).getLifecycle().addObserver(lifecycleObserver);
+		}
+	}
+
+	public static DkSheetPool newIns(Context context) {
+		return new DkSheetPool(context, DEFAULT_MAX_HOST_COUNT, DEFAULT_MAX_SHEET_COUNT);
+	}
+
+	/**
+	 * Create hosts and inflate sheets ahead, for eg,. when the screen is idle, so first show is a pool hit.
+	 */
+	public void prewarm(@LayoutRes int sheetLayoutId, int sheetCount) {
+		while (hosts.size() < maxHostCount) {
+			hosts.push(new MyBackgroundLayout(context));
+		}
+		for (int index = 0; index < sheetCount; ++index) {
+			recycleSheet(sheetLayoutId, inflateSheet(sheetLayoutId));
+		}
+	}
+
+	MyBackgroundLayout obtainHost() {
+		final MyBackgroundLayout host = hosts.poll();
+		if (host != null) {
+			++hostHitCount;
+			return host;
+		}
+		++hostMissCount;
+		return new MyBackgroundLayout(context);
+	}
+
+	void recycleHost(MyBackgroundLayout host) {
+		// Only idle and detached hosts can be reused
+		if (host.isSheetShowing() || host.getParent() != null || hosts.size() >= maxHostCount) {
+			return;
+		}
+		host.resetForReuse();
+		hosts.push(host);
+	}
+
+	/**
+	 * Get a pooled sheet view of given layout, or inflate new one if the pool has nothing for it.
+	 */
+	@NonNull
+	public View obtainSheet(@LayoutRes int sheetLayoutId) {
+		final ArrayDeque<View> views = sheets.get(sheetLayoutId);
+		final View sheetView = views == null ? null : views.poll();
+		if (sheetView != null) {
+			--sheetCount;
+			++sheetHitCount;
+			return sheetView;
+		}
+		++sheetMissCount;
+		return inflateSheet(sheetLayoutId);
+	}
+
+	/**
+	 * Give back a sheet view which was removed from its parent, so next show of same layout can reuse it.
+	 */
+	public void recycleSheet(@LayoutRes int sheetLayoutId, @NonNull View sheetView) {
+		if (sheetView.getParent() != null || maxSheetCount <= 0) {
+			return;
+		}
+		final TheOnSheetRecycleListener recycleListener = sheetRecycleListeners.get(sheetLayoutId);
+		if (recycleListener != null) {
+			recycleListener.onRecycleSheet(sheetView);
+		}
+		ArrayDeque<View> views = sheets.get(sheetLayoutId);
+		if (views == null) {
+			sheets.put(sheetLayoutId, views = new ArrayDeque<>());
+		}
+		views.push(sheetView);
+		++sheetCount;
+
+		trimSheetsTo(maxSheetCount);
+	}
+
+	/**
+	 * Drop all pooled views and stop listening to memory events and lifecycle of the context.
+	 */
+	public void release() {
+		clear();
+		context.getApplicationContext().unregisterComponentCallbacks(poolCallbacks);
+		if (context instanceof LifecycleOwner) {
+			((LifecycleOwner) context).getLifecycle().removeObserver(lifecycleObserver);
+		}
+	}
+
+	public void clear() {
+		inflateParent = null;
+		hosts.clear();
+		sheets.clear();
+		sheetCount = 0;
+	}
+
+	// region ComponentCallbacks2
+
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+			clear();
+		}
+		else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+			trimSheetsTo(maxSheetCount / 2);
+			while (hosts.size() > 1) {
+				hosts.pollLast();
+			}
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		clear();
+	}
+
+	@Override
+	public void onConfigurationChanged(@NonNull Configuration newConfig) {
+		// Pooled views were inflated with old resources
+		clear();
+	}
+
+	// endregion ComponentCallbacks2
+
+	// region Get/Set
+
+	/**
+	 * Set a resetter of sheet views of given layout, it is called each time a view of that layout
+	 * is given back to this pool. Pass null to remove.
+	 */
+	public void setOnSheetRecycleListener(@LayoutRes int sheetLayoutId, @Nullable TheOnSheetRecycleListener listener) {
+		if (listener == null) {
+			sheetRecycleListeners.remove(sheetLayoutId);
+		}
+		else {
+			sheetRecycleListeners.put(sheetLayoutId, listener);
+		}
+	}
+
+	public int getHostHitCount() {
+		return hostHitCount;
+	}
+
+	public int getHostMissCount() {
+		return hostMissCount;
+	}
+
+	public int getSheetHitCount() {
+		return sheetHitCount;
+	}
+
+	public int getSheetMissCount() {
+		return sheetMissCount;
+	}
+
+	public int getPooledSheetCount() {
+		return sheetCount;
+	}
+
+	// endregion Get/Set
+
+	private View inflateSheet(@LayoutRes int sheetLayoutId) {
+		// Host is a FrameLayout, so inflate against a FrameLayout to get compatible layout params
+		if (inflateParent == null) {
+			inflateParent = new FrameLayout(context);
+		}
+		return LayoutInflater.from(context).inflate(sheetLayoutId, inflateParent, false);
+	}
+
+	/**
+	 * Evict sheet views of least recently used layouts until the pool has at most given count.
+	 */
+	private void trimSheetsTo(int maxCount) {
+		final Iterator<Map.Entry<Integer, ArrayDeque<View>>> it = sheets.entrySet().iterator();
+		while (sheetCount > maxCount && it.hasNext()) {
+			final ArrayDeque<View> views = it.next().getValue();
+			while (sheetCount > maxCount && views.pollLast() != null) {
+				--sheetCount;
+			}
+			if (views.isEmpty()) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forwards application callbacks to the pool while the pool is reachable, so a pool which was not released
+	 * does not stay reachable from the application. Unregisters itself once the pool was collected.
+	 */
+	private static final class MyPoolCallbacks implements ComponentCallbacks2 {
+		private final WeakReference<DkSheetPool> poolRef;
+		private final Context appContext;
+
+		MyPoolCallbacks(DkSheetPool pool) {
+			this.poolRef = new WeakReference<>(pool);
+			this.appContext = pool.context.getApplicationContext();
+		}
+
+		@Nullable
+		private DkSheetPool pool() {
+			final DkSheetPool pool = poolRef.get();
+			if (pool == null) {
+				appContext.unregisterComponentCallbacks(this);
+			}
+			return pool;
+		}
+
+		@Override
+		public void onTrimMemory(int level) {
+			final DkSheetPool pool = pool();
+			if (pool != null) {
+				pool.onTrimMemory(level);
+			}
+		}
+
+		@Override
+		public void onLowMemory() {
+			final DkSheetPool pool = pool();
+			if (pool != null) {
+				pool.onLowMemory();
+			}
+		}
+
+		@Override
+		public void onConfigurationChanged(@NonNull Configuration newConfig) {
+			final DkSheetPool pool = pool();
+			if (pool != null) {
+				pool.onConfigurationChanged(newConfig);
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package tool.compet.bottomsheet;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.text.Spannable;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import tool.compet.core.DkLogcats;
+
+/**
+ * Inflates a layout on a worker thread, precomputes text layouts of its TextViews there,
+ * then gives the result back on main thread.
+ *
+ * Like AsyncLayoutInflater, some views cannot be created on a thread without Looper
+ * (for eg,. views which create Handler in constructor), for this case we fallback to inflate on main thread.
+ * Also like it, the worker uses its own inflater without factories since LayoutInflater is not thread-safe
+ * and factories (for eg,. AppCompat one) touch main thread state, so factory-substituted views are not created.
+ */
+final class MyAsyncInflater {
+	interface OnPrecomputeListener {
+		// Called on worker thread
+		void onPrecompute(View layout);
+	}
+
+	interface OnInflatedListener {
+		// Called on main thread
+		void onInflated(View layout);
+	}
+
+	private static Executor executor;
+	private static Handler mainHandler;
+
+	static void inflate(LayoutInflater inflater, int layoutId, ViewGroup parent, OnPrecomputeListener precomputeListener, OnInflatedListener inflatedListener) {
+		if (executor == null) {
+			mainHandler = new Handler(Looper.getMainLooper());
+			executor = Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(() -> {
+					Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+					runnable.run();
+				}, "DkSheetInflater");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		final LayoutInflater workerInflater = new BasicInflater(inflater.getContext());
+
+		executor.execute(() -> {
+			View layout = null;
+			final ArrayList<TextView> textViews = new ArrayList<>();
+			final ArrayList<PrecomputedTextCompat> texts = new ArrayList<>();
+
+			final boolean traced = MySheetTrace.begin(MySheetTrace.INFLATE);
+			try {
+				layout = workerInflater.inflate(layoutId, parent, false);
+				precomputeTexts(layout, textViews, texts);
+				precomputeListener.onPrecompute(layout);
+			}
+			catch (RuntimeException e) {
+				DkLogcats.notice(MyAsyncInflater.class, "Failed to inflate in background, fallback to main thread: %s", e.getMessage());
+				layout = null;
+
+				// They belong to the failed attempt
+				textViews.clear();
+				texts.clear();
+			}
+			finally {
+				MySheetTrace.end(traced);
+			}
+
+			final View inflatedLayout = layout;
+			mainHandler.post(() -> {
+				final boolean tracedOnMain = MySheetTrace.begin(MySheetTrace.INFLATE);
+				final View result;
+				try {
+					if (inflatedLayout != null) {
+						result = inflatedLayout;
+						for (int index = textViews.size() - 1; index >= 0; --index) {
+							applyPrecomputedText(textViews.get(index), texts.get(index));
+						}
+					}
+					else {
+						result = inflater.inflate(layoutId, parent, false);
+					}
+				}
+				finally {
+					MySheetTrace.end(tracedOnMain);
+				}
+				inflatedListener.onInflated(result);
+			});
+		});
+	}
+
+	// Compute text layouts of static texts, so main thread only needs to set them
+	private static void precomputeTexts(View view, ArrayList<TextView> textViews, ArrayList<PrecomputedTextCompat> texts) {
+		if (view instanceof TextView && ! (view instanceof EditText)) {
+			final TextView textView = (TextView) view;
+			final CharSequence text = textView.getText();
+
+			if (text != null && text.length() > 0 && ! (text instanceof Spannable)) {
+				textViews.add(textView);
+				texts.add(PrecomputedTextCompat.create(text, TextViewCompat.getTextMetricsParams(textView)));
+			}
+		}
+		else if (view instanceof ViewGroup) {
+			final ViewGroup layout = (ViewGroup) view;
+			for (int index = 0, count = layout.getChildCount(); index < count; ++index) {
+				precomputeTexts(layout.getChildAt(index), textViews, texts);
+			}
+		}
+	}
+
+	private static void applyPrecomputedText(TextView textView, PrecomputedTextCompat text) {
+		try {
+			TextViewCompat.setPrecomputedText(textView, text);
+		}
+		catch (IllegalArgumentException e) {
+			// Text params were changed after precompute, just set as normal text
+			textView.setText(text.toString());
+		}
+	}
+
+	/**
+	 * Inflater of the worker thread, like one of AsyncLayoutInflater: no factory,
+	 * and framework views are looked up in common packages.
+	 */
+	private static final class BasicInflater extends LayoutInflater {
+		private static final String[] CLASS_PREFIXES = {
+			"android.widget.",
+			"android.webkit.",
+			"android.app."
+		};
+
+		BasicInflater(Context context) {
+			super(context);
+		}
+
+		@Override
+		public LayoutInflater cloneInContext(Context newContext) {
+			return new BasicInflater(newContext);
+		}
+
+		@Override
+		protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException {
+			for (String prefix : CLASS_PREFIXES) {
+				try {
+					final View view = createView(name, prefix, attrs);
+					if (view != null) {
+						return view;
+					}
+				}
+				catch (ClassNotFoundException ignored) {
+				}
+			}
+			return super.onCreateView(name, attrs);
+		}
+	}
+}
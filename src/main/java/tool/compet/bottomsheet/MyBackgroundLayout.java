@@ -1,32 +1,31 @@
 package tool.compet.bottomsheet;
 
-import android.animation.Animator;
-import android.animation.ObjectAnimator;
-import android.animation.TimeInterpolator;
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Point;
+import android.graphics.Paint;
 import android.graphics.Rect;
-import android.util.Property;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
-import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
-import android.view.WindowManager;
-import android.view.animation.DecelerateInterpolator;
+import android.widget.AbsListView;
 import android.widget.FrameLayout;
+import android.widget.ScrollView;
 
 import androidx.annotation.NonNull;
-
-import java.util.concurrent.CopyOnWriteArraySet;
-
-import tool.compet.core.DkLogcats;
-
-public class MyBackgroundLayout extends FrameLayout {
+import androidx.core.view.NestedScrollingParent3;
+import androidx.core.view.NestedScrollingParentHelper;
+import androidx.core.view.ViewCompat;
+import androidx.core.widget.NestedScrollView;
+import androidx.recyclerview.widget.RecyclerView;
+
+public class MyBackgroundLayout extends FrameLayout implements NestedScrollingParent3 {
+	// Note: order of states must be same with `MySheetMotion.STATE_*`
 	public enum State {
 		// Initial state
 		HIDDEN,
@@ -41,45 +40,101 @@ public class MyBackgroundLayout extends FrameLayout {
 		EXPANDED
 	}
 
+	interface OnSheetRemovedListener {
+		// Called when a sheet view was removed from this host (dismissed, or swapped with new sheet)
+		void onSheetRemoved(View sheetView);
+	}
+
 	public interface OnSheetStateChangeListener {
 		void onSheetStateChanged(State state);
 	}
 
-	// Animation state
-	private State state = State.HIDDEN;
+	public interface OnSheetSlideListener {
+		/**
+		 * Called each time the sheet is translated, for eg,. at each frame while dragging or animating.
+		 *
+		 * @param translation Translation of the sheet, counted from the bottom of the host.
+		 * @param progress    Translation relative to the max translation, 0 when hidden and 1 when fully expanded.
+		 */
+		void onSheetSlide(float translation, float progress);
+	}
 
-	private static final Property<MyBackgroundLayout, Float> SHEET_TRANSLATION = new Property<>(Float.class, "sheetTranslation") {
-		@Override
-		public Float get(MyBackgroundLayout object) {
-			return object.sheetTranslation;
-		}
+	public interface OnSheetProgressListener {
+		/**
+		 * Called at most once per frame with the latest progress and state of the sheet.
+		 *
+		 * @param translation Translation of the sheet, counted from the bottom of the host.
+		 * @param progress    Translation relative to the max translation, 0 when hidden and 1 when fully expanded.
+		 * @param state       State of the sheet, after hysteresis is applied.
+		 */
+		void onSheetProgress(float translation, float progress, State state);
+	}
 
-		@Override
-		public void set(MyBackgroundLayout object, Float value) {
-			object.translateSheetView(value);
-		}
-	};
-	private static final long ANIMATION_DURATION = 250;
+	private static final State[] STATES = State.values();
+
+	// Platform-free sheet math: state, translation, detents and settle choice
+	private final MySheetMotion motion = new MySheetMotion();
+
+	// Used as elapsed time of the first frame of the spring
+	private static final float FIRST_FRAME_SECONDS = 1 / 60f;
+
+	// What to do when the sheet animation ends
+	private static final int END_ACTION_NONE = 0;
+	private static final int END_ACTION_DISMISS = 1;
+
+	// Cross-fade duration of old and new sheets when swapping in place
+	private static final long SWAP_FADE_DURATION = 150;
 
 	// Content of sheetView should be wrapped for tablet, and matched parent for mobile.
 	private final boolean isTablet = false;//getResources().getBoolean(R.bool.bottomsheet_is_tablet);
 
 	private final int defaultSheetWidth = 0;//getResources().getDimensionPixelSize(R.dimen.bottomsheet_default_sheet_width);
-	public boolean bottomSheetOwnsTouch;
 	private Runnable onPostDismiss;
 
-	// Use for what???
+	// Region of this host which is not covered by the sheet
 	private final Rect contentClipRect = new Rect();
 
+	// Culls content which is covered by the settled sheet
+	private final MyContentOccluder contentOccluder = new MyContentOccluder();
+	boolean cullCoveredContent;
+
 	boolean peekOnDismiss = false;
-	private final TimeInterpolator animationInterpolator = new DecelerateInterpolator(1.6f);
-	private boolean sheetViewOwnsTouch;
-	private float sheetTranslation;
 
-	// For fly gesture
-	private VelocityTracker velocityTracker;
-	private float minFlingVelocity;
-	private float touchSlop;
+	// Where the sheet can rest, null to use peek and expanded only
+	DkSheetDetents detents;
+
+	// Show new sheet by swapping with presented sheet instead of dismissing it first
+	boolean swapInPlace;
+	OnSheetRemovedListener onSheetRemovedListener;
+
+	// Active pointer, velocity and prediction of the drag
+	private final MySheetTouchInput touchInput = new MySheetTouchInput();
+
+	// Translation which the sheet is drawn at, it leads `motion.sheetTranslation` while dragging with prediction
+	private float drawnSheetTranslation;
+	private int maxFlingVelocity;
+
+	// Touches of this gesture were handed to the sheet content when the sheet reached the top,
+	// at release, the content flings with velocity of whole gesture
+	private boolean contentTouchHandoff;
+
+	// Scroller under the finger, resolved once per gesture
+	private final MyScrollTargetFinder scrollTargetFinder = new MyScrollTargetFinder();
+	private final ViewTreeObserver.OnGlobalLayoutListener scrollTargetLayoutListener = scrollTargetFinder::invalidate;
+	private final ViewTreeObserver.OnScrollChangedListener scrollTargetScrollListener = this::onContentScrolled;
+
+	// Visible part of the sheet is published to content views which want it
+	private final MySheetViewportDispatcher viewportDispatcher = new MySheetViewportDispatcher();
+
+	// Nested scrolling: inner scrollers (RecyclerView, NestedScrollView...) drive the sheet directly,
+	// so their touches are not intercepted and re-dispatched by this layout.
+	private final NestedScrollingParentHelper nestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+	private float nestedScrollY; // Virtual finger position, accumulated from scroll deltas
+	private boolean nestedScrollMovedSheet;
+	private boolean nestedFlingConsumed;
+	private boolean nestedFlingHandedOff; // Content fling reached its top and was continued by the sheet
+	private long lastNestedFlingNanos; // Time of previous content fling step, 0 if no step yet
+	private final int[] nestedScrollConsumed = new int[2];
 
 	// Transfomers when translation of sheetView change.
 	private MyViewTransformer defaultViewTransformer = new IdentityViewTransformer();
@@ -87,20 +142,54 @@ public class MyBackgroundLayout extends FrameLayout {
 
 	private boolean shouldDimContentView = true;
 	boolean useHardwareLayerWhileAnimating = true;
-	private Animator currentAnimator;
-	final CopyOnWriteArraySet<TheOnSheetDismissedListener> onSheetDismissedListeners = new CopyOnWriteArraySet<>();
-	final CopyOnWriteArraySet<OnSheetStateChangeListener> onSheetStateChangeListeners = new CopyOnWriteArraySet<>();
-	private OnLayoutChangeListener sheetViewOnLayoutChangeListener;
-
-	// Show under the `sheetView`
-	private final View dimView;
+	private final MySheetLayerPolicy layerPolicy = new MySheetLayerPolicy();
+
+	// Spring for peek, expand and dismiss, it is stepped at each Choreographer frame.
+	// Settle time comes from physics, and the spring is retargeted instead of recreated.
+	final MySheetSpring sheetSpring = new MySheetSpring();
+	private final Choreographer.FrameCallback sheetSpringFrameCallback = this::onSheetSpringFrame;
+	private long lastSpringFrameTimeNanos;
+	private int animateEndAction;
+	private View dismissingSheetView;
+
+	// Performance metrics, null if no collector is attached
+	DkSheetMetrics metrics;
+	private long frameIntervalNanos = 16_666_667;
+	private long showStartNanos;
+	private long pendingInputNanos;
+	private final ViewTreeObserver.OnDrawListener inputFrameDrawListener = this::onWindowDraw;
+	private int animationFrameCount;
+	private int animationDroppedFrameCount;
+
+	// Cookie of async trace sections of this host
+	private final int traceCookie = System.identityHashCode(this);
+	final MyListenerRegistry<TheOnSheetDismissedListener> onSheetDismissedListeners = new MyListenerRegistry<>(new TheOnSheetDismissedListener[0]);
+	final MyListenerRegistry<OnSheetStateChangeListener> onSheetStateChangeListeners = new MyListenerRegistry<>(new OnSheetStateChangeListener[0]);
+	final MyListenerRegistry<OnSheetSlideListener> onSheetSlideListeners = new MyListenerRegistry<>(new OnSheetSlideListener[0]);
+	final MySheetProgressDispatcher progressDispatcher = new MySheetProgressDispatcher();
+	private final OnLayoutChangeListener sheetViewOnLayoutChangeListener = this::onSheetViewLayoutChange;
+
+	// Size changes of the sheet are applied once per frame
+	private final Choreographer.FrameCallback sizeChangeFrameCallback = this::onSheetSizeChangeFrame;
+	private boolean sizeChangeScheduled;
+	private boolean touchActive;
+
+	// Scrim is drawn by this host over the region which is not covered by the sheet,
+	// so changing its alpha only re-records display list of this host.
+	private Paint scrimPaint; // Created at first draw of the scrim
+	private float scrimAlpha;
+
+	// Presented sheet, it is tracked here instead of assuming a child index
 	private View sheetView;
 
+	// Layout of this host is done locally instead of requesting layout of the parent
+	private boolean localLayoutPending;
+	private boolean sheetChildChanging; // A sheet is being added or removed
+	private final ViewTreeObserver.OnPreDrawListener localLayoutListener = this::onPreDrawLayoutLocally;
+
 	boolean interceptContentTouch = true;
 	private int currentSheetViewHeight;
 	private boolean hasIntercepted;
-	private final float defaultPeekKeyline;
-	private float peekHeight;
 
 	/**
 	 * Some values we need to manage width on tablets
@@ -109,67 +198,242 @@ public class MyBackgroundLayout extends FrameLayout {
 	private int sheetStartX = 0;
 	private int sheetEndX = 0;
 
-	// Snapshot of the touch's y position on a down event
-	private float downY;
-
-	// Snapshot of the touch's x position on a down event
-	private float downX;
-
-	// Snapshot of the sheet's translation at the time of the last down event
-	private float downSheetTranslation;
-
-	// Snapshot of the sheet's state at the time of the last down event
-	private State downState;
+	// Display and touch values which were applied at last show
+	private MyDisplayCache.Values displayValues;
 
+	/**
+	 * Construction does nothing but necessary, display and touch values are applied at first show,
+	 * so hosts which are created at screen startup (or pooled) but never shown cost almost nothing.
+	 */
 	public MyBackgroundLayout(Context context) {
 		super(context);
-
-		ViewConfiguration viewConfiguration = ViewConfiguration.get(getContext());
-		this.minFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
-		this.touchSlop = viewConfiguration.getScaledTouchSlop();
-
-		final View dimView = this.dimView = new View(getContext());
-		dimView.setBackgroundColor(Color.BLACK);
-		dimView.setAlpha(0);
-		dimView.setVisibility(INVISIBLE);
-
 		setFocusableInTouchMode(true);
+	}
+
+	/**
+	 * Apply window and touch values of the window which this host is shown in, if they are not applied yet
+	 * or have changed (window resized, rotated or moved to another display) since last show.
+	 */
+	private void applyDisplayValues() {
+		final MyDisplayCache.Values values = MyDisplayCache.get(getContext());
+		if (values == this.displayValues) {
+			return;
+		}
+		this.displayValues = values;
 
-		Point point = new Point();
-		((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getSize(point);
-		this.screenWidth = point.x;
-		this.sheetEndX = screenWidth;
+		this.motion.minFlingVelocity = values.minFlingVelocity;
+		this.maxFlingVelocity = values.maxFlingVelocity;
+		this.motion.touchSlop = values.touchSlop;
+		this.touchInput.setMaxPredictionDistance(4 * values.touchSlop);
 
-		this.peekHeight = 0; // getHeight() return 0 at start!
-		this.defaultPeekKeyline = point.y - (this.screenWidth / (16.0f / 9.0f));
+		this.screenWidth = values.screenWidth;
+		this.sheetEndX = values.screenWidth;
+		this.motion.setDefaultPeekKeyline(values.defaultPeekKeyline);
 	}
 
 	@Override
 	protected void onAttachedToWindow() {
 		super.onAttachedToWindow();
-		velocityTracker = VelocityTracker.obtain();
+
+		final Display display = getDisplay();
+		if (display != null && display.getRefreshRate() > 0) {
+			this.frameIntervalNanos = (long) (1e9 / display.getRefreshRate());
+		}
+
+		final ViewTreeObserver observer = getViewTreeObserver();
+		observer.addOnGlobalLayoutListener(scrollTargetLayoutListener);
+		observer.addOnScrollChangedListener(scrollTargetScrollListener);
+		observer.addOnPreDrawListener(localLayoutListener);
+		observer.addOnDrawListener(inputFrameDrawListener);
 	}
 
 	@Override
 	protected void onDetachedFromWindow() {
 		super.onDetachedFromWindow();
-		velocityTracker.clear();
+		touchInput.release();
 		cancelCurrentAnimation();
+		contentOccluder.restore();
+		layerPolicy.releaseLayer();
+		progressDispatcher.cancel();
+
+		if (sizeChangeScheduled) {
+			this.sizeChangeScheduled = false;
+			Choreographer.getInstance().removeFrameCallback(sizeChangeFrameCallback);
+		}
+
+		final ViewTreeObserver observer = getViewTreeObserver();
+		observer.removeOnGlobalLayoutListener(scrollTargetLayoutListener);
+		observer.removeOnScrollChangedListener(scrollTargetScrollListener);
+		observer.removeOnPreDrawListener(localLayoutListener);
+		observer.removeOnDrawListener(inputFrameDrawListener);
+		this.localLayoutPending = false;
+		this.pendingInputNanos = 0;
+	}
+
+	/**
+	 * This host fills its parent, so its size never depends on the sheet. When a sheet is added, removed
+	 * or resized (layout is requested from inside the sheet), we layout this host locally before next draw
+	 * instead of requesting layout of the app root. Other requests (of this host or its other children)
+	 * go to the parent as usual.
+	 */
+	@Override
+	public void requestLayout() {
+		if (isSheetLayoutRequest() && canLayoutLocally()) {
+			// Like a normal request, this host reports a requested layout until it is laid out
+			forceLayout();
+			if (! localLayoutPending) {
+				this.localLayoutPending = true;
+				invalidate(); // Make sure a traversal (and pre-draw) is scheduled
+			}
+			return;
+		}
+		super.requestLayout();
+	}
+
+	private boolean isSheetLayoutRequest() {
+		final View sheetView = this.sheetView;
+		return sheetChildChanging || (sheetView != null && sheetView.getParent() == this && sheetView.isLayoutRequested());
+	}
+
+	private void addSheetChild(View sheetView, LayoutParams params) {
+		this.sheetChildChanging = true;
+		try {
+			super.addView(sheetView, -1, params);
+		}
+		finally {
+			this.sheetChildChanging = false;
+		}
+	}
+
+	private void removeSheetChild(View sheetView) {
+		this.sheetChildChanging = true;
+		try {
+			removeView(sheetView);
+		}
+		finally {
+			this.sheetChildChanging = false;
+		}
+	}
+
+	private boolean canLayoutLocally() {
+		final ViewGroup.LayoutParams params = getLayoutParams();
+		return isAttachedToWindow()
+			&& ViewCompat.isLaidOut(this)
+			&& ! isInLayout()
+			&& params != null
+			&& params.width == LayoutParams.MATCH_PARENT
+			&& params.height == LayoutParams.MATCH_PARENT
+			&& getParent() != null
+			&& ! getParent().isLayoutRequested();
+	}
+
+	private boolean onPreDrawLayoutLocally() {
+		if (localLayoutPending) {
+			this.localLayoutPending = false;
+
+			// Parent may have laid out this host already in this traversal
+			forceLayout();
+			measure(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+			layout(getLeft(), getTop(), getRight(), getBottom());
+
+			// The framework does not dispatch global layout for a local layout. Only our own consumers
+			// need to know: the scroll target index is rebuilt here, viewport was dispatched in onLayout()
+			scrollTargetFinder.invalidate();
+		}
+		return true;
 	}
 
 	@Override
 	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-		super.onLayout(changed, left, top, right, bottom);
+		final boolean traced = MySheetTrace.begin(MySheetTrace.LAYOUT);
+		try {
+			// Bounds are read by sheet content while it lays out (for eg,. viewport of a list sheet)
+			syncMotionLayout();
+			super.onLayout(changed, left, top, right, bottom);
+
+			// New layout epoch, rebuild bounds which per-frame code reads
+			syncMotionLayout();
+
+			this.contentClipRect.set(
+				0,
+				0,
+				getWidth(),
+				(int) (getHeight() - Math.ceil(this.drawnSheetTranslation))
+			);
 
-		//todo replace getWidth() and getHeight() with right-left, bottom-top
-		DkLogcats.debug(this, "---- onLayout: %d, %d, %d, %d and size: %d, %d", left, top, right, bottom, getWidth(), getHeight());
+			// Covered region may have changed
+			if (contentOccluder.isApplied()) {
+				contentOccluder.apply(this, getSheetView(), this.contentClipRect.bottom);
+			}
 
-		this.contentClipRect.set(
-			0,
-			0,
-			getWidth(),
-			(int) (getHeight() - Math.ceil(this.sheetTranslation))
-		);
+			// Content may have been added, removed or moved
+			viewportDispatcher.invalidate();
+			viewportDispatcher.dispatch(getSheetView(), getSheetViewportHeight());
+		}
+		finally {
+			MySheetTrace.end(traced);
+		}
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		if (scrimAlpha > 0) {
+			drawScrim(canvas);
+		}
+		super.dispatchDraw(canvas);
+	}
+
+	/**
+	 * Called when the window draws a frame. A drag only changes translation of the sheet (and the scrim
+	 * if dimming), which does not redraw this host, so the frame of a drag event is observed on the window.
+	 */
+	private void onWindowDraw() {
+		if (pendingInputNanos != 0) {
+			if (metrics != null) {
+				metrics.inputToFrameMicros.record((System.nanoTime() - pendingInputNanos) / 1000);
+			}
+			pendingInputNanos = 0;
+		}
+	}
+
+	/**
+	 * Draw the scrim under the sheet, only over the region which the sheet does not cover.
+	 */
+	private void drawScrim(Canvas canvas) {
+		Paint scrimPaint = this.scrimPaint;
+		if (scrimPaint == null) {
+			scrimPaint = this.scrimPaint = new Paint();
+			scrimPaint.setColor(Color.BLACK);
+		}
+		scrimPaint.setAlpha((int) (scrimAlpha * 255));
+
+		// Region above the sheet
+		final int width = getWidth();
+		final int sheetTop = this.contentClipRect.bottom;
+		canvas.drawRect(0, 0, width, sheetTop, scrimPaint);
+
+		// Regions beside the sheet when it does not match width of this host (tablet)
+		final View sheetView = getSheetView();
+		if (sheetView != null) {
+			final int height = getHeight();
+			if (sheetView.getLeft() > 0) {
+				canvas.drawRect(0, sheetTop, sheetView.getLeft(), height, scrimPaint);
+			}
+			if (sheetView.getRight() < width) {
+				canvas.drawRect(sheetView.getRight(), sheetTop, width, height, scrimPaint);
+			}
+		}
+	}
+
+	@Override
+	public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
+		super.onDescendantInvalidated(child, target);
+
+		// Property changes (translation...) of the sheet come with target is the sheet itself,
+		// they do not re-render the layer, so only count invalidations of its content.
+		if (target != child) {
+			layerPolicy.onContentInvalidated();
+		}
 	}
 
 	@Override
@@ -191,7 +455,7 @@ public class MyBackgroundLayout extends FrameLayout {
 						dispatcherState.handleUpEvent(event);
 					}
 					if (isSheetShowing() && event.isTracking() && !event.isCanceled()) {
-						if (this.state == State.EXPANDED && this.peekOnDismiss) {
+						if (this.motion.state == MySheetMotion.STATE_EXPANDED && this.peekOnDismiss) {
 							animatePeekSheet();
 						}
 						else {
@@ -210,8 +474,20 @@ public class MyBackgroundLayout extends FrameLayout {
 		final boolean downAction = event.getActionMasked() == MotionEvent.ACTION_DOWN;
 		if (downAction) {
 			this.hasIntercepted = false;
+
+			if (isSheetShowing()) {
+				scrollTargetFinder.resolve(getSheetView(), event.getX(), event.getY() + (motion.sheetTranslation - getHeight()));
+
+				// Let the nested scrolling child under the finger handle the gesture,
+				// it will drive the sheet via nested scroll callbacks.
+				final View scrollTarget = scrollTargetFinder.getTarget();
+				if (scrollTarget != null && ViewCompat.isNestedScrollingEnabled(scrollTarget) && ! isAnimating()
+					&& event.getY() > getHeight() - motion.sheetTranslation && isXInSheet(event.getX())) {
+					return false;
+				}
+			}
 		}
-		if (interceptContentTouch || (event.getY() > getHeight() - sheetTranslation && isXInSheet(event.getX()))) {
+		if (interceptContentTouch || (event.getY() > getHeight() - motion.sheetTranslation && isXInSheet(event.getX()))) {
 			this.hasIntercepted = downAction && isSheetShowing();
 		}
 		else {
@@ -229,155 +505,359 @@ public class MyBackgroundLayout extends FrameLayout {
 			return onInterceptTouchEvent(event);
 		}
 
-		final int action = event.getAction();
+		final int action = event.getActionMasked();
+		final MySheetMotion motion = this.motion;
+		final MySheetTouchInput touchInput = this.touchInput;
+
+		// Position of the active pointer, continuous across pointer switches
+		touchInput.onTouchEvent(event);
+		final float touchX = touchInput.x;
+		final float touchY = touchInput.y;
 
 		if (action == MotionEvent.ACTION_DOWN) {
-			// Snapshot the state of things when finger touches the screen.
-			// This allows us to calculate deltas without losing precision
-			// which we would have if we calculated deltas based on the previous touch.
-			bottomSheetOwnsTouch = false;
-			sheetViewOwnsTouch = false;
-			downY = event.getY();
-			downX = event.getX();
-			downSheetTranslation = sheetTranslation;
-			downState = state;
-			velocityTracker.clear();
-		}
-		velocityTracker.addMovement(event);
-
-		// The max translation is a hard limit while the min translation is where we start dragging more slowly and allow the sheet to be dismissed.
-		float maxSheetTranslation = getMaxSheetTranslation();
-		float peekSheetTranslation = getPeekSheetTranslation();
-
-		float deltaY = downY - event.getY();
-		float deltaX = downX - event.getX();
-
-		if (! bottomSheetOwnsTouch && ! sheetViewOwnsTouch) {
-			bottomSheetOwnsTouch = Math.abs(deltaY) > touchSlop;
-			sheetViewOwnsTouch = Math.abs(deltaX) > touchSlop;
-
-			if (bottomSheetOwnsTouch) {
-				if (state == State.PEEKED) {
-					MotionEvent cancelEvent = MotionEvent.obtain(event);
-					cancelEvent.offsetLocation(0, sheetTranslation - getHeight());
-					cancelEvent.setAction(MotionEvent.ACTION_CANCEL);
-					getSheetView().dispatchTouchEvent(cancelEvent);
-					cancelEvent.recycle();
-				}
+			motion.onDown(touchX, touchY);
+			this.contentTouchHandoff = false;
+		}
+		this.touchActive = action != MotionEvent.ACTION_UP && action != MotionEvent.ACTION_CANCEL;
+
+		if (motion.claimTouch(touchX, touchY)) {
+			if (motion.state == MySheetMotion.STATE_PEEKED) {
+				dispatchSyntheticTouch(event, MotionEvent.ACTION_CANCEL, motion.sheetTranslation - getHeight());
 
-				sheetViewOwnsTouch = false;
-				downY = event.getY();
-				downX = event.getX();
-				deltaY = 0;
-				deltaX = 0;
+				// Layer may have been released while the sheet was idle
+				setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
 			}
 		}
 
 		// This is not the actual new sheet translation but a first approximation it will be adjusted to account for max and min translations etc.
-		float newSheetTranslation = downSheetTranslation + deltaY;
+		float newSheetTranslation = motion.dragTranslation(touchY);
 
-		if (bottomSheetOwnsTouch) {
+		if (motion.bottomSheetOwnsTouch) {
 			// If we are scrolling down and the sheet cannot scroll further, go out of expanded mode.
-			boolean scrollingDown = deltaY < 0;
-			boolean canScrollUp = canScrollUp(getSheetView(), event.getX(), event.getY() + (sheetTranslation - getHeight()));
-			if (state == State.EXPANDED && scrollingDown && !canScrollUp) {
-				// Reset variables so deltas are correctly calculated from the point at which the sheet was 'detached' from the top.
-				downY = event.getY();
-				downSheetTranslation = sheetTranslation;
-				velocityTracker.clear();
+			if (motion.isScrollingDownWhileExpanded(touchY)
+				&& ! scrollTargetFinder.canScrollUp(getSheetView(), event.getX(), event.getY() + (motion.sheetTranslation - getHeight()))) {
+				// Keep velocity of the finger, so the sheet settles with momentum of whole gesture
+				newSheetTranslation = motion.detachFromTop(touchY);
 				setState(State.PEEKED);
 				setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
-				newSheetTranslation = sheetTranslation;
 
 				// Dispatch a cancel event to the sheet to make sure its touch handling is cleaned up nicely.
-				MotionEvent cancelEvent = MotionEvent.obtain(event);
-				cancelEvent.setAction(MotionEvent.ACTION_CANCEL);
-				getSheetView().dispatchTouchEvent(cancelEvent);
-				cancelEvent.recycle();
+				dispatchSyntheticTouch(event, MotionEvent.ACTION_CANCEL, 0);
 			}
 
 			// If we are at the top of the view we should go into expanded mode.
-			if (state == State.PEEKED && newSheetTranslation > maxSheetTranslation) {
+			if (motion.reachesTop(newSheetTranslation)) {
+				final float maxSheetTranslation = motion.getMaxSheetTranslation();
 				translateSheetView(maxSheetTranslation);
 
 				// Dispatch a down event to the sheet to make sure its touch handling is initiated correctly.
 				newSheetTranslation = Math.min(maxSheetTranslation, newSheetTranslation);
-				MotionEvent downEvent = MotionEvent.obtain(event);
-				downEvent.setAction(MotionEvent.ACTION_DOWN);
-				getSheetView().dispatchTouchEvent(downEvent);
-				downEvent.recycle();
+				dispatchSyntheticTouch(event, MotionEvent.ACTION_DOWN, 0);
+				this.contentTouchHandoff = true;
 
 				setState(State.EXPANDED);
 				setSheetLayerTypeIfEnabled(View.LAYER_TYPE_NONE);
 			}
 
-			if (state == State.EXPANDED) {
+			if (motion.state == MySheetMotion.STATE_EXPANDED) {
 				// Dispatch the touch to the sheet if we are expanded so it can handle its own internal scrolling.
-				event.offsetLocation(0, sheetTranslation - getHeight());
+				event.offsetLocation(0, motion.sheetTranslation - getHeight());
 				getSheetView().dispatchTouchEvent(event);
+
+				// Content only saw the part of the gesture after the sheet reached the top
+				if (action == MotionEvent.ACTION_UP && contentTouchHandoff) {
+					final float velocityY = touchInput.computeYVelocity(maxFlingVelocity);
+					if (-velocityY >= motion.minFlingVelocity) {
+						flingScrollTarget((int) -velocityY);
+					}
+				}
 			}
 			else {
-				// Make delta less effective when sheet is below the minimum translation.
-				// This makes it feel like scrolling in jello which gives the user an indication that the sheet will be dismissed if they let go.
-				if (newSheetTranslation < peekSheetTranslation) {
-					newSheetTranslation = peekSheetTranslation - (peekSheetTranslation - newSheetTranslation) / 4f;
+				newSheetTranslation = motion.applyJello(newSheetTranslation);
+
+				// Draw the sheet where the finger will be when the frame is shown, so it does not trail the finger.
+				// Motion state, settle and state decisions still use the actual position.
+				if (action == MotionEvent.ACTION_MOVE) {
+					final float predictedY = touchInput.predictY(frameIntervalNanos / 1e6f);
+					translateSheetView(newSheetTranslation, motion.applyJello(motion.dragTranslation(predictedY)) - newSheetTranslation);
+				}
+				else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+					// Settle from where the sheet is drawn, so it does not jump back by the prediction lead
+					translateSheetView(this.drawnSheetTranslation);
+				}
+				else {
+					translateSheetView(newSheetTranslation);
 				}
 
-				translateSheetView(newSheetTranslation);
+				// Earliest drag event which is not drawn yet, uptime and nano time have same base
+				if (metrics != null && pendingInputNanos == 0) {
+					pendingInputNanos = event.getEventTime() * 1_000_000L;
+				}
 
 				if (action == MotionEvent.ACTION_CANCEL) {
-					// If touch is canceled, go back to previous state, a canceled touch should never commit an action.
-					if (downState == State.EXPANDED) {
-						animateExpandSheet();
-					}
-					else {
-						animatePeekSheet();
-					}
+					animateSettle(motion.chooseCancelSettle(), 0);
 				}
 
 				if (action == MotionEvent.ACTION_UP) {
-					if (newSheetTranslation < peekSheetTranslation) {
-						animateDismissSheet();
-					}
-					else {
-						// If touch is released, go to a new state depending on velocity.
-						// If the velocity is not high enough we use the position of the sheet to determine the new state.
-						velocityTracker.computeCurrentVelocity(1000);
-						float velocityY = velocityTracker.getYVelocity();
-						if (Math.abs(velocityY) < minFlingVelocity) {
-							if (sheetTranslation > getHeight() / 2f) {
-								animateExpandSheet();
-							}
-							else {
-								animatePeekSheet();
-							}
-						}
-						else {
-							if (velocityY < 0) {
-								animateExpandSheet();
-							}
-							else {
-								animatePeekSheet();
-							}
-						}
-					}
+					final float velocityY = touchInput.computeYVelocity(maxFlingVelocity);
+
+					// Translation is counted from the bottom, so it moves opposite to the finger
+					animateSettle(motion.chooseSettle(newSheetTranslation, velocityY), -velocityY);
 				}
 			}
 		}
 		else {
 			// If the user clicks outside of the bottom sheet area we should dismiss the bottom sheet.
-			boolean touchOutsideBottomSheet = event.getY() < getHeight() - sheetTranslation || ! isXInSheet(event.getX());
+			boolean touchOutsideBottomSheet = event.getY() < getHeight() - motion.sheetTranslation || ! isXInSheet(event.getX());
 			if (action == MotionEvent.ACTION_UP && touchOutsideBottomSheet && interceptContentTouch) {
 				animateDismissSheet();
 				return true;
 			}
 
-			event.offsetLocation(isTablet ? getX() - sheetStartX : 0, sheetTranslation - getHeight());
+			event.offsetLocation(isTablet ? getX() - sheetStartX : 0, motion.sheetTranslation - getHeight());
 			getSheetView().dispatchTouchEvent(event);
 		}
 		return true;
 	}
 
+	/**
+	 * Fling the scroller under the finger, it replaces the fling which the scroller may have started by itself.
+	 *
+	 * @param velocityY Scroll velocity, positive to scroll content up.
+	 */
+	private void flingScrollTarget(int velocityY) {
+		final View target = scrollTargetFinder.getTarget();
+		if (target == null || ! target.canScrollVertically(1)) {
+			return;
+		}
+		if (target instanceof RecyclerView) {
+			((RecyclerView) target).fling(0, velocityY);
+		}
+		else if (target instanceof NestedScrollView) {
+			((NestedScrollView) target).fling(velocityY);
+		}
+		else if (target instanceof ScrollView) {
+			((ScrollView) target).fling(velocityY);
+		}
+		else if (target instanceof AbsListView) {
+			((AbsListView) target).fling(velocityY);
+		}
+	}
+
+	/**
+	 * Dispatch given event to the sheet as another action. Like ViewGroup does for cancel events,
+	 * we temporarily change action and location of the event instead of obtaining a copy, then restore them.
+	 */
+	private void dispatchSyntheticTouch(MotionEvent event, int action, float offsetY) {
+		final int oldAction = event.getAction();
+		event.setAction(action);
+		event.offsetLocation(0, offsetY);
+
+		getSheetView().dispatchTouchEvent(event);
+
+		event.offsetLocation(0, -offsetY);
+		event.setAction(oldAction);
+	}
+
+	/**
+	 * @param velocity Start velocity of translation in pixels per second.
+	 */
+	private void animateSettle(int settle, float velocity) {
+		switch (settle) {
+			case MySheetMotion.SETTLE_EXPAND: {
+				animateExpandSheet(velocity);
+				break;
+			}
+			case MySheetMotion.SETTLE_DISMISS: {
+				animateDismissSheet(null, velocity);
+				break;
+			}
+			default: {
+				animatePeekSheet(this.motion.settleTranslation, velocity);
+			}
+		}
+	}
+
+	// region NestedScrollingParent3
+
+	@Override
+	public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes, int type) {
+		// Content fling is followed only while expanded, so its momentum can be handed to the sheet at content top
+		return (type == ViewCompat.TYPE_TOUCH || motion.state == MySheetMotion.STATE_EXPANDED)
+			&& (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0
+			&& isSheetShowing()
+			&& ! isAnimating();
+	}
+
+	@Override
+	public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes, int type) {
+		nestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes, type);
+
+		// Content fling starts before the touch scroll stops, touch state must be kept
+		if (type != ViewCompat.TYPE_TOUCH) {
+			this.nestedFlingHandedOff = false;
+			this.lastNestedFlingNanos = 0;
+			return;
+		}
+		this.nestedScrollY = 0;
+		this.nestedScrollMovedSheet = false;
+		this.nestedFlingConsumed = false;
+		this.motion.onDown(0, 0);
+
+		if (motion.state == MySheetMotion.STATE_PEEKED) {
+			setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
+		}
+	}
+
+	@Override
+	public void onNestedPreScroll(@NonNull View target, int dx, int dy, @NonNull int[] consumed, int type) {
+		// Like touches handled by this layout, the sheet takes all vertical scroll until it is expanded
+		if (type == ViewCompat.TYPE_TOUCH && motion.state == MySheetMotion.STATE_PEEKED) {
+			consumed[1] = dragSheetByNestedScroll(dy);
+		}
+	}
+
+	@Override
+	public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed, int type, @NonNull int[] consumed) {
+		// Content is at its top and user is scrolling down: go out of expanded mode and move the sheet
+		if (type == ViewCompat.TYPE_TOUCH && dyUnconsumed < 0 && motion.state == MySheetMotion.STATE_EXPANDED) {
+			motion.detachFromTop(this.nestedScrollY);
+			setState(State.PEEKED);
+			setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
+
+			consumed[1] += dragSheetByNestedScroll(dyUnconsumed);
+		}
+		else if (type == ViewCompat.TYPE_NON_TOUCH) {
+			// Fling step covers the time since previous step, which is more than one frame if frames were dropped
+			final long now = System.nanoTime();
+			final long stepNanos = lastNestedFlingNanos == 0 ? frameIntervalNanos : now - lastNestedFlingNanos;
+			this.lastNestedFlingNanos = now;
+
+			if (dyUnconsumed < 0) {
+				onNestedFlingReachesTop(target, dyConsumed + dyUnconsumed, stepNanos);
+
+				// Rest of the fling (if it goes on) is taken by the sheet, so the content does not overscroll
+				if (nestedFlingHandedOff) {
+					consumed[1] += dyUnconsumed;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Content fling has reached top of the content, continue it by settling the sheet down with fling velocity,
+	 * instead of stopping at the top and requiring another fling to move the sheet.
+	 *
+	 * @param dy Scroll delta of the fling in this step (negative).
+	 * @param stepNanos Time which the step took, measured between consecutive fling steps.
+	 */
+	private void onNestedFlingReachesTop(View target, int dy, long stepNanos) {
+		if (nestedFlingHandedOff || motion.state != MySheetMotion.STATE_EXPANDED || isAnimating()) {
+			return;
+		}
+		// Scroll velocity is same as translation velocity
+		final float velocity = dy * 1e9f / Math.max(stepNanos, 1);
+		final int settle = motion.chooseSettle(motion.sheetTranslation, -velocity);
+		if (settle == MySheetMotion.SETTLE_EXPAND) {
+			return;
+		}
+		this.nestedFlingHandedOff = true;
+		if (target instanceof RecyclerView) {
+			((RecyclerView) target).stopScroll();
+		}
+		animateSettle(settle, velocity);
+	}
+
+	@Override
+	public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed, int type) {
+		onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type, nestedScrollConsumed);
+	}
+
+	@Override
+	public boolean onNestedPreFling(@NonNull View target, float velocityX, float velocityY) {
+		// Settle the sheet instead of flinging content if the sheet was moved by this gesture
+		if (nestedScrollMovedSheet && motion.state != MySheetMotion.STATE_EXPANDED) {
+			this.nestedFlingConsumed = true;
+
+			// Scroll velocity is opposite to finger velocity, and same as translation velocity
+			animateSettle(motion.chooseSettle(motion.sheetTranslation, -velocityY), velocityY);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void onStopNestedScroll(@NonNull View target, int type) {
+		nestedScrollingParentHelper.onStopNestedScroll(target, type);
+
+		// Released without fling, settle by position
+		if (type == ViewCompat.TYPE_TOUCH && nestedScrollMovedSheet && ! nestedFlingConsumed && motion.state != MySheetMotion.STATE_EXPANDED) {
+			animateSettle(motion.chooseSettle(motion.sheetTranslation, 0), 0);
+		}
+		this.nestedScrollMovedSheet = false;
+	}
+
+	@Override
+	public int getNestedScrollAxes() {
+		return nestedScrollingParentHelper.getNestedScrollAxes();
+	}
+
+	// Framework nested scrolling (for eg,. ListView, ScrollView) only has touch type
+
+	@Override
+	public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes) {
+		return onStartNestedScroll(child, target, axes, ViewCompat.TYPE_TOUCH);
+	}
+
+	@Override
+	public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes) {
+		onNestedScrollAccepted(child, target, axes, ViewCompat.TYPE_TOUCH);
+	}
+
+	@Override
+	public void onNestedPreScroll(@NonNull View target, int dx, int dy, @NonNull int[] consumed) {
+		onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
+	}
+
+	@Override
+	public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+		onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, ViewCompat.TYPE_TOUCH, nestedScrollConsumed);
+	}
+
+	@Override
+	public void onStopNestedScroll(@NonNull View target) {
+		onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
+	}
+
+	/**
+	 * Move the sheet by a nested scroll delta, like a finger drag does.
+	 *
+	 * @param dy Scroll delta, positive when finger moves up.
+	 * @return Consumed delta.
+	 */
+	private int dragSheetByNestedScroll(int dy) {
+		final MySheetMotion motion = this.motion;
+		this.nestedScrollY -= dy;
+		this.nestedScrollMovedSheet = true;
+
+		final float newSheetTranslation = motion.dragTranslation(this.nestedScrollY);
+
+		// Reached the top, expand and give remaining delta back to the content
+		if (motion.reachesTop(newSheetTranslation)) {
+			final float maxSheetTranslation = motion.getMaxSheetTranslation();
+			final int consumed = Math.round(maxSheetTranslation - motion.sheetTranslation);
+			translateSheetView(maxSheetTranslation);
+			setState(State.EXPANDED);
+			setSheetLayerTypeIfEnabled(LAYER_TYPE_NONE);
+			return consumed;
+		}
+
+		translateSheetView(motion.applyJello(newSheetTranslation));
+		return dy;
+	}
+
+	// endregion NestedScrollingParent3
+
 	/**
 	 * Convenience for showWithSheetView(sheetView, null, null).
 	 *
@@ -395,43 +875,42 @@ public class MyBackgroundLayout extends FrameLayout {
 	 * @param viewTransformer The view transformer to use when presenting the sheet.
 	 */
 	void animateShowSheet(final View sheetView, final MyViewTransformer viewTransformer) {
+		final boolean traced = MySheetTrace.begin(MySheetTrace.SHOW);
+		try {
+			showSheet(sheetView, viewTransformer);
+		}
+		finally {
+			MySheetTrace.end(traced);
+		}
+	}
+
+	private void showSheet(final View sheetView, final MyViewTransformer viewTransformer) {
+		applyDisplayValues();
+		setVisibility(VISIBLE);
+
+		// Replace presented sheet without dismissing it
+		if (swapInPlace && canSwapSheet()) {
+			swapSheet(sheetView, viewTransformer);
+			return;
+		}
+
 		// Make sure sheet is not animating.
 		// If it is animating, we animate after dismissed.
-		if (this.state != State.HIDDEN) {
+		if (this.motion.state != MySheetMotion.STATE_HIDDEN) {
 			final Runnable runAfterDismiss = () -> animateShowSheet(sheetView, viewTransformer);
 			animateDismissSheet(runAfterDismiss);
 			return;
 		}
 		setState(State.PREPARING);
 
-		// Prepare to add content view to this layout.
-		// We will add `dimView` first, then add `sheetView` over on.
-		LayoutParams sheetViewLayoutParams = (LayoutParams) sheetView.getLayoutParams();
-		if (sheetViewLayoutParams == null) {
-			sheetViewLayoutParams = new LayoutParams(
-				this.isTablet ? LayoutParams.WRAP_CONTENT : LayoutParams.MATCH_PARENT,
-				LayoutParams.WRAP_CONTENT,
-				Gravity.CENTER_HORIZONTAL
-			);
+		if (metrics != null) {
+			this.showStartNanos = System.nanoTime();
 		}
 
-		if (this.isTablet && sheetViewLayoutParams.width == LayoutParams.WRAP_CONTENT) {
-			// Center by default if they didn't specify anything
-			if (sheetViewLayoutParams.gravity == LayoutParams.MATCH_PARENT) {
-				sheetViewLayoutParams.gravity = Gravity.CENTER_HORIZONTAL;
-			}
-
-			sheetViewLayoutParams.width = this.defaultSheetWidth;
-
-			// Update start and end coordinates for touch reference
-			int horizontalSpacing = this.screenWidth - this.defaultSheetWidth;
-			this.sheetStartX = horizontalSpacing / 2;
-			this.sheetEndX = this.screenWidth - this.sheetStartX;
-		}
-
-		// Add `dimView -> sheetView` at top of this layout (index = -1)
-		super.addView(this.dimView, -1, generateDefaultLayoutParams()); // match parent
-		super.addView(sheetView, -1, sheetViewLayoutParams); // custom params
+		// Add `sheetView` at top of this layout (index = -1), the scrim is drawn by this layout
+		addSheetChild(sheetView, generateSheetLayoutParams(sheetView)); // custom params
+		this.sheetView = sheetView;
+		syncMotionLayout();
 
 		initializeSheetValues();
 
@@ -459,29 +938,164 @@ public class MyBackgroundLayout extends FrameLayout {
 		// SheetView should always be anchored to the bottom of the screen.
 		// Translate sheetViee when layout changed
 		this.currentSheetViewHeight = sheetView.getMeasuredHeight();
-		this.sheetViewOnLayoutChangeListener = (theSheetView, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
-			DkLogcats.debug(this, "----- sheetViewOnLayoutChangeListener has happend");
-
-			final int newSheetViewHeight = theSheetView.getMeasuredHeight();
-			if (this.state != State.HIDDEN) {
-				// The sheet can no longer be in the expanded state if it has shrunk
-				if (newSheetViewHeight < this.currentSheetViewHeight) {
-					if (this.state == State.EXPANDED) {
-						setState(State.PEEKED);
+		sheetView.addOnLayoutChangeListener(this.sheetViewOnLayoutChangeListener);
+	}
+
+	/**
+	 * @return true if presented sheet is resting or moving between its detents, so it can be replaced in place.
+	 */
+	private boolean canSwapSheet() {
+		final int state = this.motion.state;
+		return getSheetView() != null
+			&& (state == MySheetMotion.STATE_PEEKED || state == MySheetMotion.STATE_EXPANDED)
+			&& ! (isAnimating() && animateEndAction == END_ACTION_DISMISS);
+	}
+
+	/**
+	 * Replace presented sheet with given sheet. The host and scrim stay, the old sheet fades out
+	 * while the new sheet fades in at same position, then the new sheet springs to its height in one animation.
+	 */
+	private void swapSheet(final View newSheetView, final MyViewTransformer viewTransformer) {
+		final View oldSheetView = getSheetView();
+
+		oldSheetView.removeOnLayoutChangeListener(sheetViewOnLayoutChangeListener);
+		layerPolicy.releaseLayer();
+		contentOccluder.restore();
+		scrollTargetFinder.clear();
+		viewportDispatcher.clear();
+
+		// New sheet starts at where old sheet is, over old sheet
+		newSheetView.setAlpha(0);
+		newSheetView.setTranslationY(getHeight() - this.motion.sheetTranslation);
+		addSheetChild(newSheetView, generateSheetLayoutParams(newSheetView));
+		this.sheetView = newSheetView;
+		this.viewTransformer = viewTransformer;
+
+		// Height of new sheet is not known yet, ignore the change of height at its first layout
+		this.currentSheetViewHeight = 0;
+		newSheetView.addOnLayoutChangeListener(sheetViewOnLayoutChangeListener);
+
+		getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+			@Override
+			public boolean onPreDraw() {
+				getViewTreeObserver().removeOnPreDrawListener(this); // this: ViewTreeObserver.OnPreDrawListener
+
+				// New sheet was laid out, so bounds are of it now
+				syncMotionLayout();
+
+				oldSheetView.animate().cancel();
+				oldSheetView.animate()
+					.alpha(0)
+					.setDuration(SWAP_FADE_DURATION)
+					.withEndAction(() -> {
+						removeSheetChild(oldSheetView);
+						oldSheetView.setAlpha(1);
+
+						if (onSheetRemovedListener != null) {
+							onSheetRemovedListener.onSheetRemoved(oldSheetView);
+						}
+					});
+
+				if (getSheetView() == newSheetView) {
+					newSheetView.animate().alpha(1).setDuration(SWAP_FADE_DURATION);
+
+					// One spring from old height to new height
+					if (motion.state == MySheetMotion.STATE_EXPANDED || motion.getPeekSheetTranslation() >= motion.getMaxSheetTranslation()) {
+						animateExpandSheet();
 					}
-					translateSheetView(newSheetViewHeight);
-				}
-				else if (this.currentSheetViewHeight > 0 && newSheetViewHeight > this.currentSheetViewHeight && this.state == State.PEEKED) {
-					if (newSheetViewHeight == getMaxSheetTranslation()) {
-						setState(State.EXPANDED);
+					else {
+						animatePeekSheet();
 					}
-					translateSheetView(newSheetViewHeight);
 				}
+				return true;
 			}
-			this.currentSheetViewHeight = newSheetViewHeight;
-		};
+		});
+	}
 
-		sheetView.addOnLayoutChangeListener(this.sheetViewOnLayoutChangeListener);
+	private LayoutParams generateSheetLayoutParams(View sheetView) {
+		LayoutParams sheetViewLayoutParams = (LayoutParams) sheetView.getLayoutParams();
+		if (sheetViewLayoutParams == null) {
+			sheetViewLayoutParams = new LayoutParams(
+				this.isTablet ? LayoutParams.WRAP_CONTENT : LayoutParams.MATCH_PARENT,
+				LayoutParams.WRAP_CONTENT,
+				Gravity.CENTER_HORIZONTAL
+			);
+		}
+
+		if (this.isTablet && sheetViewLayoutParams.width == LayoutParams.WRAP_CONTENT) {
+			// Center by default if they didn't specify anything
+			if (sheetViewLayoutParams.gravity == LayoutParams.MATCH_PARENT) {
+				sheetViewLayoutParams.gravity = Gravity.CENTER_HORIZONTAL;
+			}
+
+			sheetViewLayoutParams.width = this.defaultSheetWidth;
+
+			// Update start and end coordinates for touch reference
+			int horizontalSpacing = this.screenWidth - this.defaultSheetWidth;
+			this.sheetStartX = horizontalSpacing / 2;
+			this.sheetEndX = this.screenWidth - this.sheetStartX;
+		}
+		return sheetViewLayoutParams;
+	}
+
+	private void onSheetViewLayoutChange(View theSheetView, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+		// The sheet is laid out before this host finishes its layout, so rebuild bounds here too
+		syncMotionLayout();
+
+		// Content which loads progressively may resize the sheet many times in a row,
+		// only the last size of this frame is applied, at next frame
+		if (theSheetView.getMeasuredHeight() != this.currentSheetViewHeight && ! sizeChangeScheduled) {
+			this.sizeChangeScheduled = true;
+			Choreographer.getInstance().postFrameCallback(sizeChangeFrameCallback);
+		}
+	}
+
+	/**
+	 * Apply last size of the sheet by animating it toward new translation. If the sheet is moving,
+	 * the spring is retargeted, so a burst of size changes costs one continuous animation.
+	 */
+	private void onSheetSizeChangeFrame(long frameTimeNanos) {
+		this.sizeChangeScheduled = false;
+
+		final View sheetView = getSheetView();
+		if (sheetView == null) {
+			return;
+		}
+		final int oldSheetViewHeight = this.currentSheetViewHeight;
+		final int newSheetViewHeight = sheetView.getMeasuredHeight();
+		this.currentSheetViewHeight = newSheetViewHeight;
+
+		final int state = this.motion.state;
+		if (state == MySheetMotion.STATE_HIDDEN || state == MySheetMotion.STATE_PREPARING
+			|| (isAnimating() && animateEndAction == END_ACTION_DISMISS)) {
+			return;
+		}
+		// The sheet can no longer be in the expanded state if it has shrunk
+		if (newSheetViewHeight < oldSheetViewHeight) {
+			if (state == MySheetMotion.STATE_EXPANDED) {
+				setState(State.PEEKED);
+			}
+			// Under the finger, next move is clamped to new bounds
+			if (! isUserDragging()) {
+				animateSheetTo(Math.min(this.motion.sheetTranslation, newSheetViewHeight), 0, END_ACTION_NONE);
+			}
+		}
+		// Reveal grown content, but not while the user is dragging the sheet
+		else if (oldSheetViewHeight > 0 && newSheetViewHeight > oldSheetViewHeight && state == MySheetMotion.STATE_PEEKED && ! isUserDragging()) {
+			if (newSheetViewHeight == this.motion.getMaxSheetTranslation()) {
+				setState(State.EXPANDED);
+			}
+			animateSheetTo(newSheetViewHeight, 0, END_ACTION_NONE);
+		}
+	}
+
+	private void onContentScrolled() {
+		scrollTargetFinder.invalidateBounds();
+		viewportDispatcher.dispatch(getSheetView(), getSheetViewportHeight());
+	}
+
+	private boolean isUserDragging() {
+		return (touchActive && this.motion.bottomSheetOwnsTouch) || getNestedScrollAxes() != ViewCompat.SCROLL_AXIS_NONE;
 	}
 
 	/**
@@ -491,133 +1105,210 @@ public class MyBackgroundLayout extends FrameLayout {
 		animateDismissSheet(null);
 	}
 
-	private void animateDismissSheet(Runnable onPostDismiss) {
-		if (state == State.HIDDEN) {
+	/**
+	 * Dismiss the sheet currently being presented, and run given action after the sheet was removed.
+	 */
+	void animateDismissSheet(Runnable onPostDismiss) {
+		animateDismissSheet(onPostDismiss, 0);
+	}
+
+	private void animateDismissSheet(Runnable onPostDismiss, float velocity) {
+		if (motion.state == MySheetMotion.STATE_HIDDEN) {
 			this.onPostDismiss = null;
 			return;
 		}
 		// This must be set every time, including if the parameter is null
 		// Otherwise a new sheet might be shown when the caller called dismiss after a showWithSheet call, which would be
 		this.onPostDismiss = onPostDismiss;
-		final View sheetView = getSheetView();
+		final View sheetView = this.dismissingSheetView = getSheetView();
 		sheetView.removeOnLayoutChangeListener(sheetViewOnLayoutChangeListener);
 
-		cancelCurrentAnimation();
+		animateSheetTo(0, velocity, END_ACTION_DISMISS);
 
-		final ObjectAnimator animator = ObjectAnimator.ofFloat(this, SHEET_TRANSLATION, 0);
-		animator.setDuration(ANIMATION_DURATION);
-		animator.setInterpolator(animationInterpolator);
-		animator.addListener(new CancelDetectionAnimationListener() {
-			@Override
-			public void onAnimationEnd(Animator animation) {
-				if (! canceled) {
-					currentAnimator = null;
-					setState(State.HIDDEN);
-					setSheetLayerTypeIfEnabled(LAYER_TYPE_NONE);
-
-					// Remove sheetView
-					//todo remove dimView too?
-					removeView(sheetView);
-
-					for (TheOnSheetDismissedListener onSheetDismissedListener : onSheetDismissedListeners) {
-						onSheetDismissedListener.onDismissed(MyBackgroundLayout.this);
-					}
-
-					// Remove sheet specific properties
-					viewTransformer = null;
-					if (MyBackgroundLayout.this.onPostDismiss != null) {
-						MyBackgroundLayout.this.onPostDismiss.run();
-						MyBackgroundLayout.this.onPostDismiss = null;
-					}
-				}
-			}
-		});
-		animator.start();
-
-		currentAnimator = animator;
 		sheetStartX = 0;
 		sheetEndX = screenWidth;
 	}
 
-	private boolean isXInSheet(float x) {
-		return ! isTablet || (x >= sheetStartX && x <= sheetEndX);
+	private void onDismissAnimationEnd() {
+		final boolean traced = MySheetTrace.begin(MySheetTrace.DISMISS);
+		try {
+			final View sheetView = this.dismissingSheetView;
+			this.dismissingSheetView = null;
+
+			setState(State.HIDDEN);
+			layerPolicy.releaseLayer();
+
+			// Remove sheetView
+			removeSheetChild(sheetView);
+			this.sheetView = null;
+			setScrimAlpha(0);
+			if (onSheetRemovedListener != null) {
+				onSheetRemovedListener.onSheetRemoved(sheetView);
+			}
+			syncMotionLayout();
+			scrollTargetFinder.clear();
+			viewportDispatcher.clear();
+
+			// Remove sheet specific properties
+			viewTransformer = null;
+
+			// Keep attached for next show, INVISIBLE does not need layout of the parent unlike GONE.
+			// This host is done before callbacks below run, they may show next sheet or release this host
+			setVisibility(INVISIBLE);
+			final Runnable onPostDismiss = this.onPostDismiss;
+			this.onPostDismiss = null;
+
+			for (TheOnSheetDismissedListener onSheetDismissedListener : onSheetDismissedListeners.snapshot()) {
+				onSheetDismissedListener.onDismissed(MyBackgroundLayout.this);
+			}
+			if (onPostDismiss != null) {
+				onPostDismiss.run();
+			}
+		}
+		finally {
+			MySheetTrace.end(traced);
+		}
 	}
 
-	private boolean isAnimating() {
-		return currentAnimator != null;
+	/**
+	 * Animate the sheet from current translation to given translation with the spring.
+	 * If the spring is running, it is retargeted and keeps its current velocity.
+	 *
+	 * @param velocity Start velocity in pixels per second, only used when the spring is not running.
+	 */
+	private void animateSheetTo(float translation, float velocity, int endAction) {
+		this.animateEndAction = endAction;
+
+		final MySheetSpring spring = this.sheetSpring;
+		if (spring.running) {
+			spring.retarget(translation);
+			return;
+		}
+		spring.start(this.motion.sheetTranslation, velocity, translation);
+
+		this.lastSpringFrameTimeNanos = 0;
+		this.animationFrameCount = 0;
+		this.animationDroppedFrameCount = 0;
+		Choreographer.getInstance().postFrameCallback(sheetSpringFrameCallback);
+		MySheetTrace.beginAsync(MySheetTrace.SETTLE, traceCookie);
 	}
 
-	private void cancelCurrentAnimation() {
-		if (currentAnimator != null) {
-			currentAnimator.cancel();
+	private void onSheetSpringFrame(long frameTimeNanos) {
+		final MySheetSpring spring = this.sheetSpring;
+		if (! spring.running) {
+			return;
+		}
+		final boolean traced = MySheetTrace.begin(MySheetTrace.SPRING_FRAME);
+		try {
+			final long lastFrameTimeNanos = this.lastSpringFrameTimeNanos;
+			this.lastSpringFrameTimeNanos = frameTimeNanos;
+
+			final float deltaSeconds = lastFrameTimeNanos == 0 ? FIRST_FRAME_SECONDS : (frameTimeNanos - lastFrameTimeNanos) / 1e9f;
+			final boolean running = spring.step(deltaSeconds);
+
+			translateSheetView(spring.value);
+
+			if (metrics != null) {
+				recordAnimationFrame(frameTimeNanos, lastFrameTimeNanos, running);
+			}
+
+			if (running) {
+				Choreographer.getInstance().postFrameCallback(sheetSpringFrameCallback);
+			}
+			else {
+				onSettleEnd();
+			}
+		}
+		finally {
+			MySheetTrace.end(traced);
 		}
 	}
 
-	private boolean canScrollUp(View view, float x, float y) {
-		if (view instanceof ViewGroup) {
-			final ViewGroup layout = (ViewGroup) view;
+	private void onSettleEnd() {
+		MySheetTrace.endAsync(MySheetTrace.SETTLE, traceCookie);
+
+		if (animateEndAction == END_ACTION_DISMISS) {
+			onDismissAnimationEnd();
+		}
+		else {
+			layerPolicy.onIdle(getSheetView());
 
-			for (int index = layout.getChildCount() - 1; index >= 0; --index) {
-				final View child = layout.getChildAt(index);
-				final int childLeft = child.getLeft() - view.getScrollX();
-				final int childTop = child.getTop() - view.getScrollY();
-				final int childRight = child.getRight() - view.getScrollX();
-				final int childBottom = child.getBottom() - view.getScrollY();
+			if (cullCoveredContent) {
+				contentOccluder.apply(this, getSheetView(), this.contentClipRect.bottom);
+			}
+			// Settled, report actual state without hysteresis
+			progressDispatcher.onChanged(this.motion.sheetTranslation, this.motion.getMaxSheetTranslation(), this.motion.state, true);
+		}
+	}
 
-				final boolean intersects = x > childLeft && x < childRight && y > childTop && y < childBottom;
+	private void recordAnimationFrame(long frameTimeNanos, long lastFrameTimeNanos, boolean running) {
+		final DkSheetMetrics metrics = this.metrics;
+		++animationFrameCount;
 
-				if (intersects && canScrollUp(child, x - childLeft, y - childTop)) {
-					return true;
-				}
+		// Frames which should have been rendered between last frame and this frame
+		if (lastFrameTimeNanos != 0) {
+			final long interval = this.frameIntervalNanos;
+			final int missedFrameCount = (int) ((frameTimeNanos - lastFrameTimeNanos + interval / 2) / interval) - 1;
+			if (missedFrameCount > 0) {
+				animationDroppedFrameCount += missedFrameCount;
 			}
 		}
-		return view.canScrollVertically(-1);
+		if (showStartNanos != 0 && this.motion.state == MySheetMotion.STATE_PEEKED) {
+			metrics.showLatencyMicros.record((frameTimeNanos - showStartNanos) / 1000);
+			showStartNanos = 0;
+		}
+		if (! running) {
+			metrics.animationFrameCounts.record(animationFrameCount);
+			metrics.animationDroppedFrameCounts.record(animationDroppedFrameCount);
+		}
 	}
 
-	private void setSheetLayerTypeIfEnabled(int layerType) {
-		if (useHardwareLayerWhileAnimating) {
-			getSheetView().setLayerType(layerType, null);
+	private boolean isXInSheet(float x) {
+		return ! isTablet || (x >= sheetStartX && x <= sheetEndX);
+	}
+
+	private boolean isAnimating() {
+		return sheetSpring.running;
+	}
+
+	private void cancelCurrentAnimation() {
+		if (sheetSpring.running) {
+			sheetSpring.stop();
+			Choreographer.getInstance().removeFrameCallback(sheetSpringFrameCallback);
+			MySheetTrace.endAsync(MySheetTrace.SETTLE, traceCookie);
 		}
 	}
 
-	private boolean hasTallerKeylineHeightSheet() {
-		return getSheetView() == null || getSheetView().getHeight() > defaultPeekKeyline;
+	private void setSheetLayerTypeIfEnabled(int layerType) {
+		if (useHardwareLayerWhileAnimating) {
+			layerPolicy.setLayerType(getSheetView(), layerType);
+		}
 	}
 
 	/**
 	 * Set dim and translation to the initial state
 	 */
 	private void initializeSheetValues() {
-		this.sheetTranslation = 0;
+		this.motion.sheetTranslation = 0;
+		this.drawnSheetTranslation = 0;
 		this.contentClipRect.set(0, 0, getWidth(), getHeight());
 
 		getSheetView().setTranslationY(getHeight());
 
-		this.dimView.setAlpha(0);
-		this.dimView.setVisibility(INVISIBLE);
+		setScrimAlpha(0);
 	}
 
 	/**
 	 * Set the presented sheet to be in an expanded state.
 	 */
 	private void animateExpandSheet() {
-		cancelCurrentAnimation();
-		setSheetLayerTypeIfEnabled(LAYER_TYPE_NONE);
+		animateExpandSheet(0);
+	}
 
-		ObjectAnimator anim = ObjectAnimator.ofFloat(this, SHEET_TRANSLATION, getMaxSheetTranslation());
-		anim.setDuration(ANIMATION_DURATION);
-		anim.setInterpolator(animationInterpolator);
-		anim.addListener(new CancelDetectionAnimationListener() {
-			@Override
-			public void onAnimationEnd(@NonNull Animator animation) {
-				if (!canceled) {
-					currentAnimator = null;
-				}
-			}
-		});
-		anim.start();
+	private void animateExpandSheet(float velocity) {
+		setSheetLayerTypeIfEnabled(LAYER_TYPE_NONE);
 
-		currentAnimator = anim;
+		animateSheetTo(this.motion.getMaxSheetTranslation(), velocity, END_ACTION_NONE);
 		setState(State.EXPANDED);
 	}
 
@@ -625,23 +1316,20 @@ public class MyBackgroundLayout extends FrameLayout {
 	 * Set the presented sheet to be in a peeked state.
 	 */
 	public void animatePeekSheet() {
-		cancelCurrentAnimation();
-		setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
+		animatePeekSheet(0);
+	}
 
-		ObjectAnimator anim = ObjectAnimator.ofFloat(this, SHEET_TRANSLATION, getPeekSheetTranslation());
-		anim.setDuration(ANIMATION_DURATION);
-		anim.setInterpolator(animationInterpolator);
-		anim.addListener(new CancelDetectionAnimationListener() {
-			@Override
-			public void onAnimationEnd(@NonNull Animator animation) {
-				if (! canceled) {
-					currentAnimator = null;
-				}
-			}
-		});
-		anim.start();
+	private void animatePeekSheet(float velocity) {
+		animatePeekSheet(this.motion.getPeekSheetTranslation(), velocity);
+	}
 
-		currentAnimator = anim;
+	/**
+	 * @param translation Translation of a detent which is lower than the max translation.
+	 */
+	private void animatePeekSheet(float translation, float velocity) {
+		setSheetLayerTypeIfEnabled(LAYER_TYPE_HARDWARE);
+
+		animateSheetTo(translation, velocity, END_ACTION_NONE);
 		setState(State.PEEKED);
 	}
 
@@ -649,51 +1337,96 @@ public class MyBackgroundLayout extends FrameLayout {
 	 * @return The peeked state translation for the presented sheet view. Translation is counted from the bottom of the view.
 	 */
 	public float getPeekSheetTranslation() {
-		return peekHeight == 0 ? getDefaultPeekTranslation() : peekHeight;
+		return motion.getPeekSheetTranslation();
 	}
 
 	/**
-	 * Set custom height for PEEKED state.
-	 *
-	 * @param peekHeight Peek height in pixels
+	 * @return Height of the sheet which is visible or about to be visible: current translation but not less than
+	 * the peek translation.
 	 */
-	public void setPeekSheetTranslation(float peekHeight) {
-		this.peekHeight = peekHeight;
+	float getSheetViewportHeight() {
+		final MySheetMotion motion = this.motion;
+		return Math.max(motion.sheetTranslation, motion.getPeekSheetTranslation());
 	}
 
-	private float getDefaultPeekTranslation() {
-		return hasTallerKeylineHeightSheet() ? defaultPeekKeyline : getSheetView().getHeight();
+	/**
+	 * @return Height which rows of a list sheet are measured up to: visible height of the sheet, but not less
+	 * than the peek height of a sheet which is taller than the keyline.
+	 */
+	float getSheetMeasureHeight() {
+		final MySheetGeometry geometry = this.motion.geometry;
+		final float tallSheetPeekHeight = geometry.peekHeight != 0 ? geometry.peekHeight : geometry.defaultPeekKeyline;
+		return Math.max(getSheetViewportHeight(), tallSheetPeekHeight);
 	}
 
 	/**
-	 * @return The currently presented sheet view. If no sheet is currently presented null will returned.
+	 * Set custom height for PEEKED state. If detents are set, this height is one more detent
+	 * (the lowest detent is still the peek height).
+	 *
+	 * @param peekHeight Peek height in pixels, 0 to use default
 	 */
-	private View getContentView() {
-		return getChildCount() > 0 ? getChildAt(0) : null;
+	public void setPeekSheetTranslation(float peekHeight) {
+		this.motion.setPeekHeight(peekHeight);
 	}
 
 	/**
 	 * @return The currently presented sheet view. If no sheet is currently presented null will returned.
 	 */
 	private View getSheetView() {
-		return getChildCount() > 1 ? getChildAt(1) : null;
+		return sheetView;
 	}
 
 	private void setState(State state) {
-		if (state != this.state) {
-			this.state = state;
+		if (state.ordinal() != this.motion.state) {
+			this.motion.state = state.ordinal();
+			MySheetTrace.counter(MySheetTrace.STATE, state.ordinal());
+			viewportDispatcher.dispatch(getSheetView(), getSheetViewportHeight());
+			progressDispatcher.onChanged(this.motion.sheetTranslation, this.motion.getMaxSheetTranslation(), this.motion.state, false);
 
-			for (OnSheetStateChangeListener listener : onSheetStateChangeListeners) {
+			for (OnSheetStateChangeListener listener : onSheetStateChangeListeners.snapshot()) {
 				listener.onSheetStateChanged(state);
 			}
 		}
 	}
 
+	/**
+	 * Reset sheet specific settings, so a pooled host looks like a new one for next owner.
+	 */
+	void resetForReuse() {
+		this.onSheetDismissedListeners.clear();
+		this.onSheetStateChangeListeners.clear();
+		this.onSheetSlideListeners.clear();
+		this.progressDispatcher.clear();
+		this.progressDispatcher.setHysteresis(0);
+		this.viewTransformer = this.defaultViewTransformer;
+		this.peekOnDismiss = false;
+		this.interceptContentTouch = true;
+		this.useHardwareLayerWhileAnimating = true;
+		this.cullCoveredContent = false;
+		this.motion.setPeekHeight(0);
+		this.detents = null;
+		this.swapInPlace = false;
+		this.onSheetRemovedListener = null;
+		this.shouldDimContentView = true;
+		this.sheetSpring.setStiffness(MySheetSpring.DEFAULT_STIFFNESS);
+		this.sheetSpring.setDampingRatio(MySheetSpring.DEFAULT_DAMPING_RATIO);
+		this.metrics = null;
+		this.showStartNanos = 0;
+		this.pendingInputNanos = 0;
+	}
+
+	/**
+	 * @return Current state of the presented sheet.
+	 */
+	public State getState() {
+		return STATES[this.motion.state];
+	}
+
 	/**
 	 * @return Whether or not a sheet is currently presented.
 	 */
 	public boolean isSheetShowing() {
-		return this.state != State.HIDDEN;
+		return this.motion.state != MySheetMotion.STATE_HIDDEN;
 	}
 
 	/**
@@ -728,61 +1461,96 @@ public class MyBackgroundLayout extends FrameLayout {
 	}
 
 	private void translateSheetView(float newTranslation) {
-		final float sheetTranslationY = this.sheetTranslation = Math.min(newTranslation, getMaxSheetTranslation());
-		final int bottomClip = (int) (getHeight() - Math.ceil(sheetTranslationY));
+		translateSheetView(newTranslation, 0);
+	}
 
-		this.contentClipRect.set(0, 0, getWidth(), bottomClip);
+	/**
+	 * @param lead Distance which the sheet is drawn ahead of given translation (touch prediction).
+	 * It only affects what is drawn (sheet, scrim, transformers, listeners), motion state keeps given translation
+	 * for hit tests and settle decisions.
+	 */
+	private void translateSheetView(float newTranslation, float lead) {
+		final boolean traced = MySheetTrace.begin(MySheetTrace.TRANSLATE);
+		try {
+			// Covered region is going to change
+			if (contentOccluder.isApplied()) {
+				contentOccluder.restore();
+			}
+			final float actualTranslation = this.motion.translate(newTranslation);
+			final float sheetTranslationY = this.drawnSheetTranslation = Math.min(actualTranslation + lead, this.motion.getMaxSheetTranslation());
+			MySheetTrace.counter(MySheetTrace.TRANSLATION, (long) sheetTranslationY);
+			final int bottomClip = (int) (getHeight() - Math.ceil(sheetTranslationY));
 
-		getSheetView().setTranslationY(getHeight() - sheetTranslationY);
-		onSheetTranslated(sheetTranslationY);
+			this.contentClipRect.set(0, 0, getWidth(), bottomClip);
+
+			getSheetView().setTranslationY(getHeight() - sheetTranslationY);
+			onSheetTranslated(sheetTranslationY);
+
+			if (this.shouldDimContentView) {
+				setScrimAlpha(getDimAlpha(sheetTranslationY));
+			}
+		}
+		finally {
+			MySheetTrace.end(traced);
+		}
+	}
 
-		if (this.shouldDimContentView) {
-			final float dimAlpha = getDimAlpha(sheetTranslationY);
-			final View dimView = this.dimView;
-			dimView.setAlpha(dimAlpha);
-			dimView.setVisibility(dimAlpha > 0 ? VISIBLE : INVISIBLE);
+	private void setScrimAlpha(float scrimAlpha) {
+		// Scrim region follows the sheet, so redraw while the scrim is visible even if alpha is same
+		if (scrimAlpha > 0 || this.scrimAlpha > 0) {
+			this.scrimAlpha = scrimAlpha;
+			invalidate();
 		}
 	}
 
 	/**
-	 * @return The maximum translation for the presented sheet view. Translation is counted from the bottom of the view.
+	 * Sync layout values of this host and the sheet into the motion core since sheet math reads them from there.
+	 * This is called once per layout pass (and when the sheet is added or removed), per-frame code must not call it.
 	 */
-	private float getMaxSheetTranslation() {
-		return hasFullHeightSheet() ? getHeight() - getPaddingTop() : getSheetView().getHeight();
+	private void syncMotionLayout() {
+		final View sheetView = getSheetView();
+		this.motion.setLayout(getHeight(), getPaddingTop(), sheetView == null ? -1 : sheetView.getMeasuredHeight());
+
+		final DkSheetDetents detents = this.detents;
+		if (detents != null) {
+			detents.resolve(sheetView);
+			this.motion.setDetents(detents.resolvedKinds, detents.resolvedValues);
+		}
+		else {
+			this.motion.setDetents(MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+		}
 	}
 
-	private boolean hasFullHeightSheet() {
-		return getSheetView() == null || getSheetView().getHeight() == getHeight();
+	private MyViewTransformer getViewTransformer() {
+		return viewTransformer != null ? viewTransformer : defaultViewTransformer;
 	}
 
 	// Let listeners know the change of sheet
 	private void onSheetTranslated(float sheetTranslation) {
-		if (viewTransformer != null) {
-			viewTransformer.transformView(sheetTranslation, getMaxSheetTranslation(), getPeekSheetTranslation(), this, getContentView());
+		final MySheetGeometry geometry = this.motion.geometry;
+		progressDispatcher.onChanged(sheetTranslation, geometry.maxTranslation, this.motion.state, false);
+
+		final OnSheetSlideListener[] slideListeners = onSheetSlideListeners.snapshot();
+		if (slideListeners.length > 0) {
+			final float progress = geometry.maxTranslation > 0 ? sheetTranslation / geometry.maxTranslation : 0;
+			for (OnSheetSlideListener listener : slideListeners) {
+				listener.onSheetSlide(sheetTranslation, progress);
+			}
 		}
-		else if (defaultViewTransformer != null) {
-			defaultViewTransformer.transformView(sheetTranslation, getMaxSheetTranslation(), getPeekSheetTranslation(), this, getContentView());
+
+		viewportDispatcher.dispatch(getSheetView(), getSheetViewportHeight());
+
+		final MyViewTransformer transformer = getViewTransformer();
+		if (transformer != null) {
+			transformer.transformView(sheetTranslation, geometry.maxTranslation, geometry.peekTranslation, this, getSheetView());
 		}
 	}
 
 	private float getDimAlpha(float sheetTranslation) {
-		if (viewTransformer != null) {
-			return viewTransformer.getDimAlpha(
-				sheetTranslation,
-				getMaxSheetTranslation(),
-				getPeekSheetTranslation(),
-				this,
-				getContentView()
-			);
-		}
-		else if (defaultViewTransformer != null) {
-			return defaultViewTransformer.getDimAlpha(
-				sheetTranslation,
-				getMaxSheetTranslation(),
-				getPeekSheetTranslation(),
-				this,
-				getContentView()
-			);
+		final MyViewTransformer transformer = getViewTransformer();
+		if (transformer != null) {
+			final MySheetGeometry geometry = this.motion.geometry;
+			return transformer.getDimAlpha(sheetTranslation, geometry.maxTranslation, geometry.peekTranslation, this, getSheetView());
 		}
 		return 0;
 	}
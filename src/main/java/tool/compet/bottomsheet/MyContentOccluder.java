@@ -0,0 +1,113 @@
+package tool.compet.bottomsheet;
+
+import android.graphics.Rect;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * Culls drawing of content which is covered by a settled opaque sheet. Content views are siblings
+ * of the host which are drawn before it, covered ones get clip bounds of their uncovered region
+ * (an empty region when fully covered). Visibility is never changed, so focus, accessibility,
+ * animations and surfaces of the content are not affected.
+ *
+ * Clip bounds are a render property, so this only saves GPU fill (overdraw) of covered pixels.
+ * Covered views still record their display lists when they are invalidated, main thread cost is same.
+ *
+ * Only views whose drawing region is known (no transform, no own clip bounds, inside the host horizontally)
+ * are touched. Views which have focus or contain a surface (SurfaceView, TextureView) are skipped.
+ * Everything is restored before the sheet moves again, except clip bounds which the app has changed meanwhile.
+ */
+final class MyContentOccluder {
+	private final ArrayList<View> clippedViews = new ArrayList<>();
+	private final ArrayList<Rect> clipBounds = new ArrayList<>(); // Clip bounds which were set to each clipped view, reused between passes
+	private final Rect currentClipBounds = new Rect();
+
+	/**
+	 * @param sheetTop Top of the sheet in host coordinates.
+	 */
+	void apply(View host, View sheetView, int sheetTop) {
+		restore();
+
+		// Content is visible through a translucent or narrow sheet
+		if (! sheetView.isOpaque() || sheetView.getLeft() > 0 || sheetView.getRight() < host.getWidth()) {
+			return;
+		}
+		if (! (host.getParent() instanceof ViewGroup)) {
+			return;
+		}
+		final ViewGroup parent = (ViewGroup) host.getParent();
+		final int hostIndex = parent.indexOfChild(host);
+		final int coveredTop = host.getTop() + sheetTop;
+		final int coveredBottom = host.getBottom();
+
+		for (int index = 0; index < hostIndex; ++index) {
+			final View child = parent.getChildAt(index);
+			if (child.getVisibility() != View.VISIBLE
+				|| child.getBottom() <= coveredTop
+				|| child.getTop() >= coveredBottom
+				|| child.getBottom() > coveredBottom
+				|| child.getLeft() < host.getLeft()
+				|| child.getRight() > host.getRight()
+				|| ! child.getMatrix().isIdentity()
+				|| child.getClipBounds(currentClipBounds)
+				|| child.hasFocus()
+				|| containsSurface(child)) {
+				continue;
+			}
+			// Fully covered view keeps an empty region. View copies given bounds, so ours can be reused
+			final Rect bounds = obtainClipBounds(clippedViews.size());
+			bounds.set(0, 0, child.getWidth(), Math.max(0, coveredTop - child.getTop()));
+			child.setClipBounds(bounds);
+			clippedViews.add(child);
+		}
+	}
+
+	private Rect obtainClipBounds(int index) {
+		final ArrayList<Rect> clipBounds = this.clipBounds;
+		if (index == clipBounds.size()) {
+			clipBounds.add(new Rect());
+		}
+		return clipBounds.get(index);
+	}
+
+	/**
+	 * Give back clip bounds of culled views.
+	 */
+	void restore() {
+		final ArrayList<View> clippedViews = this.clippedViews;
+		for (int index = clippedViews.size() - 1; index >= 0; --index) {
+			// Keep clip bounds which were changed by the app while culled
+			final View view = clippedViews.get(index);
+			if (view.getClipBounds(currentClipBounds) && currentClipBounds.equals(clipBounds.get(index))) {
+				view.setClipBounds(null);
+			}
+		}
+		clippedViews.clear();
+	}
+
+	boolean isApplied() {
+		return clippedViews.size() > 0;
+	}
+
+	/**
+	 * Surfaces are composed by the system, clipping their parent does not cull them and may break their position.
+	 */
+	private static boolean containsSurface(View view) {
+		if (view instanceof SurfaceView || view instanceof TextureView) {
+			return true;
+		}
+		if (view instanceof ViewGroup) {
+			final ViewGroup layout = (ViewGroup) view;
+			for (int index = layout.getChildCount() - 1; index >= 0; --index) {
+				if (containsSurface(layout.getChildAt(index))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,99 @@
+package tool.compet.bottomsheet;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Insets;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.ViewConfiguration;
+import android.view.WindowInsets;
+import android.view.WindowManager;
+import android.view.WindowMetrics;
+
+/**
+ * Cache of window and touch configuration values, so they are not re-computed at each sheet show.
+ * Values are keyed by the configuration of the caller's context (window size in dp, density and orientation):
+ * a sheet shown in another window (multi-window, freeform, resized or rotated window) gets values of its own
+ * window. Window size in pixels is read from the WindowManager only when that key changes, so the context
+ * must be a visual (Activity or window) context.
+ *
+ * This class must be used on main thread.
+ */
+final class MyDisplayCache {
+	static final class Values {
+		// Key: configuration which values were built for
+		final int screenWidthDp;
+		final int screenHeightDp;
+		final int densityDpi;
+		final int orientation;
+
+		final int screenWidth;
+		final int screenHeight;
+		final int touchSlop;
+		final int minFlingVelocity;
+		final int maxFlingVelocity;
+
+		// Default peek translation, sheet shows its top part which has 16:9 ratio of window width
+		final float defaultPeekKeyline;
+
+		Values(Context context, Configuration configuration, int windowWidth, int windowHeight) {
+			this.screenWidthDp = configuration.screenWidthDp;
+			this.screenHeightDp = configuration.screenHeightDp;
+			this.densityDpi = configuration.densityDpi;
+			this.orientation = configuration.orientation;
+			this.screenWidth = windowWidth;
+			this.screenHeight = windowHeight;
+			this.defaultPeekKeyline = windowHeight - (windowWidth / (16.0f / 9.0f));
+
+			final ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+			this.touchSlop = viewConfiguration.getScaledTouchSlop();
+			this.minFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+			this.maxFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+		}
+
+		boolean isFor(Configuration configuration) {
+			return this.screenWidthDp == configuration.screenWidthDp
+				&& this.screenHeightDp == configuration.screenHeightDp
+				&& this.densityDpi == configuration.densityDpi
+				&& this.orientation == configuration.orientation;
+		}
+	}
+
+	// Values of the window which was looked up most recently
+	private static Values values;
+	private static final Point windowSize = new Point();
+
+	/**
+	 * @return Values of the window of given context, same instance is returned while configuration
+	 * of that context keeps its window size, density and orientation.
+	 */
+	static Values get(Context context) {
+		final Configuration configuration = context.getResources().getConfiguration();
+
+		Values values = MyDisplayCache.values;
+		if (values == null || ! values.isFor(configuration)) {
+			final Point windowSize = MyDisplayCache.windowSize;
+			readWindowSize(context, windowSize);
+			values = MyDisplayCache.values = new Values(context, configuration, windowSize.x, windowSize.y);
+		}
+		return values;
+	}
+
+	private static void readWindowSize(Context context, Point outSize) {
+		final WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+			// Bounds of the window, not of the display, in multi-window mode.
+			// Like display size below R, navigation bar and cutout are excluded.
+			final WindowMetrics metrics = windowManager.getCurrentWindowMetrics();
+			final Insets insets = metrics.getWindowInsets().getInsetsIgnoringVisibility(
+				WindowInsets.Type.navigationBars() | WindowInsets.Type.displayCutout());
+			final Rect bounds = metrics.getBounds();
+			outSize.set(bounds.width() - insets.left - insets.right, bounds.height() - insets.top - insets.bottom);
+		}
+		else {
+			// Below R, display size is adjusted to the app window in multi-window mode
+			windowManager.getDefaultDisplay().getSize(outSize);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package tool.compet.bottomsheet;
+
+import java.util.Arrays;
+
+/**
+ * Listeners kept in an immutable snapshot array. Add and remove replace the array,
+ * dispatch iterates current snapshot, so it does not allocate and listeners can be added
+ * or removed while dispatching (the change takes effect from next dispatch).
+ * <pre><code>
+ *    for (OnSheetStateChangeListener listener : registry.snapshot()) {
+ *       listener.onSheetStateChanged(state);
+ *    }
+ * </code></pre>
+ */
+final class MyListenerRegistry<T> {
+	private final T[] empty;
+	private volatile T[] listeners;
+
+	/**
+	 * @param empty Empty array of listener type, snapshots are created with its component type.
+	 */
+	MyListenerRegistry(T[] empty) {
+		this.empty = empty;
+		this.listeners = empty;
+	}
+
+	/**
+	 * @return false if given listener was added already.
+	 */
+	synchronized boolean add(T listener) {
+		final T[] listeners = this.listeners;
+		if (indexOf(listeners, listener) >= 0) {
+			return false;
+		}
+		final T[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		this.listeners = newListeners;
+		return true;
+	}
+
+	synchronized boolean remove(T listener) {
+		final T[] listeners = this.listeners;
+		final int index = indexOf(listeners, listener);
+		if (index < 0) {
+			return false;
+		}
+		final T[] newListeners = Arrays.copyOf(empty, listeners.length - 1);
+		System.arraycopy(listeners, 0, newListeners, 0, index);
+		System.arraycopy(listeners, index + 1, newListeners, index, listeners.length - index - 1);
+		this.listeners = newListeners;
+		return true;
+	}
+
+	synchronized void clear() {
+		this.listeners = empty;
+	}
+
+	/**
+	 * @return Current listeners, caller must not modify the array.
+	 */
+	T[] snapshot() {
+		return listeners;
+	}
+
+	boolean isEmpty() {
+		return listeners.length == 0;
+	}
+
+	private static int indexOf(Object[] listeners, Object listener) {
+		for (int index = listeners.length - 1; index >= 0; --index) {
+			if (listeners[index].equals(listener)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,236 @@
+package tool.compet.bottomsheet;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.AbsListView;
+import android.widget.ScrollView;
+
+import androidx.core.view.ScrollingView;
+
+import java.util.Arrays;
+
+/**
+ * Finds vertical scrollers under the finger inside the sheet.
+ * They are resolved once at ACTION_DOWN (or after the hierarchy changed), so each move event
+ * only costs `canScrollVertically()` calls of scrollers on the path instead of a recursive hit-test of the sheet.
+ *
+ * To resolve, scroll containers of the sheet are indexed once per layout epoch into horizontal bands,
+ * so lookup only checks containers of the band under the finger instead of scanning children of
+ * every level. This matters for very wide or deep sheets. Containers are indexed by type or declared
+ * capability (vertical scrollbar), not by whether they can scroll at index time, so content which
+ * becomes scrollable later is still found.
+ */
+final class MyScrollTargetFinder {
+	// Height of a band of the index in pixels
+	private static final int BAND_HEIGHT = 256;
+
+	// Index of scroll containers of the sheet, bounds are in sheet coordinates
+	private View[] containers = new View[8];
+	private int[] depths = new int[8];
+	private int[] bounds = new int[8 * 4]; // left, top, right, bottom
+	private int containerCount;
+	private int[][] bands = new int[0][];
+	private int[] bandSizes = new int[0];
+	private View indexedSheetView;
+	private boolean indexDirty = true;
+
+	// Whether a container is inside another one, only then scrolling can move bounds of the index
+	private boolean hasNestedContainers;
+
+	// Resolved containers on the path under the finger, the deepest one is the target
+	private View target;
+	private View[] path = new View[4];
+	private int pathSize;
+	private boolean targetDirty = true;
+
+	/**
+	 * Called when the hierarchy inside the sheet has changed (layout happened).
+	 * Both index and current target will be resolved again at next use.
+	 */
+	void invalidate() {
+		this.indexDirty = true;
+		this.targetDirty = true;
+	}
+
+	/**
+	 * Called when something in the window has scrolled. Bounds of the index are not valid anymore
+	 * if a container inside another one may have moved. Current path is still the one under the finger,
+	 * so it is kept until next resolve.
+	 */
+	void invalidateBounds() {
+		if (hasNestedContainers) {
+			this.indexDirty = true;
+		}
+	}
+
+	/**
+	 * Resolve the scroll target under given point. Normally called at ACTION_DOWN.
+	 *
+	 * @param x X in sheet coordinates.
+	 * @param y Y in sheet coordinates.
+	 */
+	void resolve(View sheetView, float x, float y) {
+		if (sheetView == null) {
+			this.target = null;
+			return;
+		}
+		if (indexDirty || indexedSheetView != sheetView) {
+			buildIndex(sheetView);
+		}
+		Arrays.fill(path, 0, pathSize, null);
+		this.pathSize = 0;
+		this.target = null;
+		this.targetDirty = false;
+
+		final int band = (int) y / BAND_HEIGHT;
+		if (y < 0 || band >= bandSizes.length) {
+			return;
+		}
+		final int[] candidates = bands[band];
+		final int[] bounds = this.bounds;
+		int bestIndex = -1;
+
+		// Deepest container wins, for same depth, the one which is drawn later (indexed later) wins
+		for (int index = 0, count = bandSizes[band]; index < count; ++index) {
+			final int candidate = candidates[index];
+			final int offset = candidate << 2;
+			if (x > bounds[offset] && x < bounds[offset + 2] && y > bounds[offset + 1] && y < bounds[offset + 3]) {
+				if (pathSize == path.length) {
+					this.path = Arrays.copyOf(path, pathSize << 1);
+				}
+				path[pathSize++] = containers[candidate];
+
+				if (bestIndex < 0 || depths[candidate] >= depths[bestIndex]) {
+					bestIndex = candidate;
+				}
+			}
+		}
+		if (bestIndex >= 0) {
+			this.target = containers[bestIndex];
+		}
+	}
+
+	/**
+	 * @return true if any scroller under the finger can scroll up, for eg,. a scrolled container
+	 * whose inner list is at its top still can.
+	 * The path is resolved again with given point only if the hierarchy has changed since last resolve.
+	 */
+	boolean canScrollUp(View sheetView, float x, float y) {
+		if (targetDirty) {
+			resolve(sheetView, x, y);
+		}
+		final View[] path = this.path;
+		for (int index = pathSize - 1; index >= 0; --index) {
+			if (path[index].canScrollVertically(-1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Resolved scroll target, or null if nothing under the finger can scroll.
+	 */
+	View getTarget() {
+		return target;
+	}
+
+	/**
+	 * Drop all references to views of the sheet, for eg,. when the sheet is removed.
+	 */
+	void clear() {
+		Arrays.fill(containers, 0, containerCount, null);
+		Arrays.fill(path, 0, pathSize, null);
+		this.containerCount = 0;
+		this.pathSize = 0;
+		this.indexedSheetView = null;
+		this.target = null;
+		this.hasNestedContainers = false;
+		invalidate();
+	}
+
+	private void buildIndex(View sheetView) {
+		Arrays.fill(containers, 0, containerCount, null);
+		this.containerCount = 0;
+		this.indexedSheetView = sheetView;
+		this.indexDirty = false;
+		this.hasNestedContainers = false;
+
+		collect(sheetView, 0, 0, 0, false);
+
+		final int bandCount = sheetView.getHeight() / BAND_HEIGHT + 1;
+		if (bands.length < bandCount) {
+			final int[][] newBands = Arrays.copyOf(bands, bandCount);
+			for (int index = bands.length; index < bandCount; ++index) {
+				newBands[index] = new int[4];
+			}
+			this.bands = newBands;
+			this.bandSizes = new int[bandCount];
+		}
+		Arrays.fill(bandSizes, 0);
+
+		for (int index = 0; index < containerCount; ++index) {
+			final int offset = index << 2;
+			final int fromBand = Math.max(0, bounds[offset + 1] / BAND_HEIGHT);
+			final int toBand = Math.min(bandCount - 1, Math.max(0, bounds[offset + 3]) / BAND_HEIGHT);
+
+			for (int band = fromBand; band <= toBand; ++band) {
+				int[] candidates = bands[band];
+				if (bandSizes[band] == candidates.length) {
+					candidates = bands[band] = Arrays.copyOf(candidates, candidates.length << 1);
+				}
+				candidates[bandSizes[band]++] = index;
+			}
+		}
+	}
+
+	private void collect(View view, int left, int top, int depth, boolean insideContainer) {
+		if (view.getVisibility() != View.VISIBLE) {
+			return;
+		}
+		if (isVerticalScrollContainer(view)) {
+			add(view, left, top, left + view.getWidth(), top + view.getHeight(), depth);
+			if (insideContainer) {
+				this.hasNestedContainers = true;
+			}
+			insideContainer = true;
+		}
+		if (view instanceof ViewGroup) {
+			final ViewGroup layout = (ViewGroup) view;
+			final int scrollX = view.getScrollX();
+			final int scrollY = view.getScrollY();
+
+			for (int index = 0, count = layout.getChildCount(); index < count; ++index) {
+				final View child = layout.getChildAt(index);
+				collect(child, left + child.getLeft() - scrollX, top + child.getTop() - scrollY, depth + 1, insideContainer);
+			}
+		}
+	}
+
+	private void add(View view, int left, int top, int right, int bottom, int depth) {
+		final int index = containerCount++;
+		if (index == containers.length) {
+			this.containers = Arrays.copyOf(containers, index << 1);
+			this.depths = Arrays.copyOf(depths, index << 1);
+			this.bounds = Arrays.copyOf(bounds, index << 3);
+		}
+		final int offset = index << 2;
+		containers[index] = view;
+		depths[index] = depth;
+		bounds[offset] = left;
+		bounds[offset + 1] = top;
+		bounds[offset + 2] = right;
+		bounds[offset + 3] = bottom;
+	}
+
+	private static boolean isVerticalScrollContainer(View view) {
+		return view instanceof ScrollingView
+			|| view instanceof AbsListView
+			|| view instanceof ScrollView
+			|| view instanceof WebView
+			|| view.isVerticalScrollBarEnabled()
+			|| view.canScrollVertically(-1)
+			|| view.canScrollVertically(1);
+	}
+}
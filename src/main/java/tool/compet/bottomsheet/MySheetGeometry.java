@@ -0,0 +1,129 @@
+package tool.compet.bottomsheet;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of sheet bounds for one layout pass. It is rebuilt only when layout values change
+ * (host layout, sheet layout, peek or detent settings), so per-frame code reads bounds without walking views.
+ *
+ * Note: this file must not use any Android class since it is also compiled by the `jmh` benchmark build.
+ */
+final class MySheetGeometry {
+	// Kinds of configured detents
+	static final int DETENT_FRACTION = 0; // Fraction of the max translation
+	static final int DETENT_PIXELS = 1; // Translation in pixels
+
+	static final int[] NO_DETENT_KINDS = new int[0];
+	static final float[] NO_DETENT_VALUES = new float[0];
+
+	static final MySheetGeometry EMPTY = new MySheetGeometry(0, 0, -1, 0, 0, NO_DETENT_KINDS, NO_DETENT_VALUES);
+
+	// Layout values which this snapshot was built from
+	final int hostHeight;
+	final int hostPaddingTop;
+	final int sheetHeight; // -1 means no sheet is presented
+	final float defaultPeekKeyline;
+	final float peekHeight;
+	final int[] detentKinds;
+	final float[] detentValues;
+
+	// Translations are counted from the bottom of the host
+	final float maxTranslation;
+	final float peekTranslation;
+
+	// Resolved detents in ascending order without duplication, the last one is always the max translation.
+	// Without configured detents, it is peek and max translations. With configured detents, a custom peek height
+	// is one more detent, and if no configured detent is under the max translation, peek translation is used
+	// as without detents (so the sheet can still rest under the max translation).
+	final float[] detents;
+
+	MySheetGeometry(int hostHeight, int hostPaddingTop, int sheetHeight, float defaultPeekKeyline, float peekHeight,
+		int[] detentKinds, float[] detentValues) {
+
+		this.hostHeight = hostHeight;
+		this.hostPaddingTop = hostPaddingTop;
+		this.sheetHeight = sheetHeight;
+		this.defaultPeekKeyline = defaultPeekKeyline;
+		this.peekHeight = peekHeight;
+		this.detentKinds = detentKinds;
+		this.detentValues = detentValues;
+
+		final boolean hasFullHeightSheet = sheetHeight < 0 || sheetHeight == hostHeight;
+		final boolean hasTallerKeylineHeightSheet = sheetHeight < 0 || sheetHeight > defaultPeekKeyline;
+
+		this.maxTranslation = hasFullHeightSheet ? hostHeight - hostPaddingTop : sheetHeight;
+		this.detents = resolveDetents(detentKinds, detentValues, maxTranslation,
+			peekHeight != 0 ? peekHeight : hasTallerKeylineHeightSheet ? defaultPeekKeyline : sheetHeight, peekHeight != 0);
+
+		// Lowest detent plays the role of peek (jello and dismiss zone are under it)
+		this.peekTranslation = detents[0];
+	}
+
+	boolean isBuiltFrom(int hostHeight, int hostPaddingTop, int sheetHeight, float defaultPeekKeyline, float peekHeight,
+		int[] detentKinds, float[] detentValues) {
+
+		return this.hostHeight == hostHeight
+			&& this.hostPaddingTop == hostPaddingTop
+			&& this.sheetHeight == sheetHeight
+			&& this.defaultPeekKeyline == defaultPeekKeyline
+			&& this.peekHeight == peekHeight
+			&& this.detentKinds == detentKinds
+			&& this.detentValues == detentValues;
+	}
+
+	/**
+	 * @return Index of the detent which is nearest to given translation.
+	 */
+	int nearestDetentIndex(float translation) {
+		final float[] detents = this.detents;
+		int low = 0;
+		int high = detents.length - 1;
+
+		// Find first detent which is not less than given translation
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (detents[mid] < translation) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		if (low > 0 && translation - detents[low - 1] <= detents[low] - translation) {
+			return low - 1;
+		}
+		return low;
+	}
+
+	private static float[] resolveDetents(int[] kinds, float[] values, float maxTranslation, float peekTranslation, boolean customPeek) {
+		if (kinds.length == 0) {
+			return peekTranslation < maxTranslation
+				? new float[] {peekTranslation, maxTranslation}
+				: new float[] {maxTranslation};
+		}
+		final float[] detents = new float[kinds.length + 2];
+		int count = 0;
+
+		for (int index = kinds.length - 1; index >= 0; --index) {
+			final float detent = kinds[index] == DETENT_FRACTION ? values[index] * maxTranslation : values[index];
+			if (detent > 0 && detent < maxTranslation) {
+				detents[count++] = detent;
+			}
+		}
+		// Custom peek height is not ignored, and all detents at (or over) the max do not leave max translation alone
+		if ((customPeek || count == 0) && peekTranslation > 0 && peekTranslation < maxTranslation) {
+			detents[count++] = peekTranslation;
+		}
+		detents[count++] = maxTranslation;
+		Arrays.sort(detents, 0, count);
+
+		// Remove duplications
+		int uniqueCount = 1;
+		for (int index = 1; index < count; ++index) {
+			if (detents[index] != detents[uniqueCount - 1]) {
+				detents[uniqueCount++] = detents[index];
+			}
+		}
+		return uniqueCount == detents.length ? detents : Arrays.copyOf(detents, uniqueCount);
+	}
+}
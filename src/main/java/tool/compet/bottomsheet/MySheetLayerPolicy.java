@@ -0,0 +1,140 @@
+package tool.compet.bottomsheet;
+
+import android.os.SystemClock;
+import android.view.View;
+
+/**
+ * Decides when the sheet is rendered into a hardware layer.
+ *
+ * A layer only pays off when the sheet moves while its content stays same, so layers are not used
+ * for sheets whose content invalidates often (for eg,. a playing animation), and layers of all sheets
+ * in the process are kept under a memory budget. A layer is released when the sheet has been idle for a while.
+ *
+ * This class must be used on main thread.
+ */
+final class MySheetLayerPolicy {
+	// Default budget is enough for about two full-screen layers of a 1080x1920 display
+	static final long DEFAULT_MEMORY_BUDGET_BYTES = 16L * 1024 * 1024;
+
+	// Content which invalidates more often than this (times per second) is not cached in a layer
+	private static final float MAX_INVALIDATE_RATE = 10f;
+
+	// Invalidation rate is re-estimated at each window
+	private static final long RATE_WINDOW_MILLIS = 250;
+
+	// Layer is released after the sheet has not moved for this duration
+	private static final long IDLE_RELEASE_MILLIS = 1000;
+
+	// Total bytes of layers which are held by all sheets
+	private static long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES;
+	private static long usedMemoryBytes;
+
+	// Layer which is held by this policy
+	private View layerView;
+	private long layerBytes;
+
+	// Invalidation rate of the sheet content, smoothed over windows
+	private float invalidateRate;
+	private int windowInvalidateCount;
+	private long windowStartMillis;
+
+	private final Runnable idleReleaseAction = this::releaseLayer;
+
+	static void setMemoryBudget(long bytes) {
+		memoryBudgetBytes = bytes;
+	}
+
+	/**
+	 * Called when content of the sheet (not the sheet's own properties) has been invalidated.
+	 */
+	void onContentInvalidated() {
+		updateRate(SystemClock.uptimeMillis());
+		++windowInvalidateCount;
+
+		// Layer is re-rendered too often, drop it after this invalidation pass
+		if (layerView != null && invalidateRate > MAX_INVALIDATE_RATE) {
+			layerView.removeCallbacks(idleReleaseAction);
+			layerView.post(idleReleaseAction);
+		}
+	}
+
+	/**
+	 * Put the sheet in a layer if it is worth, or take it out from the layer.
+	 */
+	void setLayerType(View sheetView, int layerType) {
+		sheetView.removeCallbacks(idleReleaseAction);
+
+		if (layerType == View.LAYER_TYPE_HARDWARE && shouldUseLayer(sheetView)) {
+			acquireLayer(sheetView);
+		}
+		else {
+			releaseLayer();
+		}
+	}
+
+	/**
+	 * Called when the sheet has stopped moving, the layer is released if the sheet keeps idle.
+	 */
+	void onIdle(View sheetView) {
+		sheetView.removeCallbacks(idleReleaseAction);
+		if (layerView == sheetView) {
+			sheetView.postDelayed(idleReleaseAction, IDLE_RELEASE_MILLIS);
+		}
+	}
+
+	/**
+	 * Take the sheet out from its layer and give back its memory to the budget.
+	 */
+	void releaseLayer() {
+		final View layerView = this.layerView;
+		if (layerView != null) {
+			layerView.removeCallbacks(idleReleaseAction);
+			layerView.setLayerType(View.LAYER_TYPE_NONE, null);
+
+			usedMemoryBytes -= layerBytes;
+			this.layerView = null;
+			this.layerBytes = 0;
+		}
+	}
+
+	private boolean shouldUseLayer(View sheetView) {
+		updateRate(SystemClock.uptimeMillis());
+		if (invalidateRate > MAX_INVALIDATE_RATE) {
+			return false;
+		}
+		// Bytes of a ARGB_8888 layer
+		final long bytes = 4L * sheetView.getWidth() * sheetView.getHeight();
+		final long otherUsedBytes = usedMemoryBytes - (layerView == sheetView ? layerBytes : 0);
+
+		return bytes > 0 && otherUsedBytes + bytes <= memoryBudgetBytes;
+	}
+
+	private void acquireLayer(View sheetView) {
+		if (layerView != sheetView) {
+			releaseLayer();
+		}
+		final long bytes = 4L * sheetView.getWidth() * sheetView.getHeight();
+		usedMemoryBytes += bytes - layerBytes;
+		this.layerBytes = bytes;
+
+		if (layerView != sheetView) {
+			this.layerView = sheetView;
+			sheetView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+		}
+	}
+
+	private void updateRate(long now) {
+		if (windowStartMillis == 0) {
+			this.windowStartMillis = now;
+			return;
+		}
+		final long elapsed = now - windowStartMillis;
+		if (elapsed >= RATE_WINDOW_MILLIS) {
+			// A long window is measured well enough to replace old rate
+			final float windowRate = windowInvalidateCount * 1000f / elapsed;
+			this.invalidateRate = elapsed >= 4 * RATE_WINDOW_MILLIS ? windowRate : (invalidateRate + windowRate) / 2;
+			this.windowInvalidateCount = 0;
+			this.windowStartMillis = now;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package tool.compet.bottomsheet;
+
+/**
+ * Platform-free motion core of the sheet: state, translation bounds, drag math and settle choice.
+ * `MyBackgroundLayout` feeds layout values and touch positions into it, and applies results to views.
+ *
+ * Note: this file must not use any Android class since it is also compiled by the `jmh` benchmark build.
+ */
+class MySheetMotion {
+	// States, must be same order with `MyBackgroundLayout.State`
+	static final int STATE_HIDDEN = 0;
+	static final int STATE_PREPARING = 1;
+	static final int STATE_PEEKED = 2;
+	static final int STATE_EXPANDED = 3;
+
+	// Where the sheet should go after touch is released
+	static final int SETTLE_PEEK = 0;
+	static final int SETTLE_EXPAND = 1;
+	static final int SETTLE_DISMISS = 2;
+
+	// Drag delta is divided by this when the sheet is below the peek translation.
+	// This makes it feel like scrolling in jello which gives the user an indication
+	// that the sheet will be dismissed if they let go.
+	private static final float JELLO_DAMPING = 4f;
+
+	// Deceleration rate per millisecond which is used to project where a fling would stop,
+	// so the settle target is the detent nearest to that position instead of next detent.
+	private static final float PROJECTION_DECELERATION_RATE = 0.998f;
+
+	// Animation state
+	int state = STATE_HIDDEN;
+	float sheetTranslation;
+
+	// For fly gesture
+	float minFlingVelocity;
+	float touchSlop;
+
+	// Bounds of current layout pass, rebuilt only when layout values change
+	MySheetGeometry geometry = MySheetGeometry.EMPTY;
+
+	// Who is owning current gesture
+	boolean bottomSheetOwnsTouch;
+	boolean sheetViewOwnsTouch;
+
+	// Snapshot of the touch's position on a down event
+	float downX;
+	float downY;
+
+	// Snapshot of the sheet's translation and state at the time of the last down event
+	float downSheetTranslation;
+	int downState;
+
+	// Target translation of last chosen settle (for peek or expand)
+	float settleTranslation;
+
+	/**
+	 * Called at each layout pass of the host or the sheet.
+	 *
+	 * @param sheetHeight Height of presented sheet, or -1 if no sheet is presented.
+	 */
+	void setLayout(int hostHeight, int hostPaddingTop, int sheetHeight) {
+		final MySheetGeometry geometry = this.geometry;
+		if (! geometry.isBuiltFrom(hostHeight, hostPaddingTop, sheetHeight, geometry.defaultPeekKeyline, geometry.peekHeight, geometry.detentKinds, geometry.detentValues)) {
+			this.geometry = new MySheetGeometry(hostHeight, hostPaddingTop, sheetHeight, geometry.defaultPeekKeyline, geometry.peekHeight, geometry.detentKinds, geometry.detentValues);
+		}
+	}
+
+	void setDefaultPeekKeyline(float defaultPeekKeyline) {
+		final MySheetGeometry geometry = this.geometry;
+		if (geometry.defaultPeekKeyline != defaultPeekKeyline) {
+			this.geometry = new MySheetGeometry(geometry.hostHeight, geometry.hostPaddingTop, geometry.sheetHeight, defaultPeekKeyline, geometry.peekHeight, geometry.detentKinds, geometry.detentValues);
+		}
+	}
+
+	/**
+	 * @param peekHeight Custom translation for PEEKED state, 0 to use default.
+	 */
+	void setPeekHeight(float peekHeight) {
+		final MySheetGeometry geometry = this.geometry;
+		if (geometry.peekHeight != peekHeight) {
+			this.geometry = new MySheetGeometry(geometry.hostHeight, geometry.hostPaddingTop, geometry.sheetHeight, geometry.defaultPeekKeyline, peekHeight, geometry.detentKinds, geometry.detentValues);
+		}
+	}
+
+	/**
+	 * Set detents where the sheet can rest, in addition to the max translation.
+	 * Arrays are compared by reference, so pass new arrays to change detents.
+	 *
+	 * @param kinds  Kind of each detent, see `MySheetGeometry.DETENT_*`.
+	 * @param values Value of each detent.
+	 */
+	void setDetents(int[] kinds, float[] values) {
+		final MySheetGeometry geometry = this.geometry;
+		if (geometry.detentKinds != kinds || geometry.detentValues != values) {
+			this.geometry = new MySheetGeometry(geometry.hostHeight, geometry.hostPaddingTop, geometry.sheetHeight, geometry.defaultPeekKeyline, geometry.peekHeight, kinds, values);
+		}
+	}
+
+	/**
+	 * @return The maximum translation for the presented sheet. Translation is counted from the bottom of the host.
+	 */
+	float getMaxSheetTranslation() {
+		return geometry.maxTranslation;
+	}
+
+	/**
+	 * @return The peeked state translation for the presented sheet. Translation is counted from the bottom of the host.
+	 */
+	float getPeekSheetTranslation() {
+		return geometry.peekTranslation;
+	}
+
+	/**
+	 * Remember new translation of the sheet, the max translation is a hard limit.
+	 *
+	 * @return The accepted translation.
+	 */
+	float translate(float newTranslation) {
+		return this.sheetTranslation = Math.min(newTranslation, geometry.maxTranslation);
+	}
+
+	/**
+	 * Snapshot the state of things when finger touches the screen.
+	 * This allows us to calculate deltas without losing precision
+	 * which we would have if we calculated deltas based on the previous touch.
+	 */
+	void onDown(float x, float y) {
+		this.bottomSheetOwnsTouch = false;
+		this.sheetViewOwnsTouch = false;
+		this.downX = x;
+		this.downY = y;
+		this.downSheetTranslation = sheetTranslation;
+		this.downState = state;
+	}
+
+	/**
+	 * Decide who owns current gesture when nobody owns it yet.
+	 *
+	 * @return true if the sheet has just taken the gesture at this touch.
+	 */
+	boolean claimTouch(float x, float y) {
+		if (bottomSheetOwnsTouch || sheetViewOwnsTouch) {
+			return false;
+		}
+		this.bottomSheetOwnsTouch = Math.abs(downY - y) > touchSlop;
+		this.sheetViewOwnsTouch = Math.abs(downX - x) > touchSlop;
+
+		if (bottomSheetOwnsTouch) {
+			this.sheetViewOwnsTouch = false;
+			this.downX = x;
+			this.downY = y;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return First approximation of new translation while dragging, it will be adjusted
+	 * to account for max and min translations etc.
+	 */
+	float dragTranslation(float y) {
+		return downSheetTranslation + (downY - y);
+	}
+
+	/**
+	 * @return true if user is scrolling down while the sheet is expanded,
+	 * in this case the sheet should go out of expanded mode when its content cannot scroll further.
+	 */
+	boolean isScrollingDownWhileExpanded(float y) {
+		return state == STATE_EXPANDED && downY - y < 0;
+	}
+
+	/**
+	 * Detach the sheet from the top. Reset variables so deltas are correctly
+	 * calculated from the point at which the sheet was 'detached' from the top.
+	 *
+	 * @return Translation to continue dragging with.
+	 */
+	float detachFromTop(float y) {
+		this.downY = y;
+		this.downSheetTranslation = sheetTranslation;
+		return sheetTranslation;
+	}
+
+	/**
+	 * @return true if the sheet is peeked and new translation reaches to top of the host,
+	 * in this case the sheet should go into expanded mode.
+	 */
+	boolean reachesTop(float newTranslation) {
+		return state == STATE_PEEKED && newTranslation > geometry.maxTranslation;
+	}
+
+	/**
+	 * Make delta less effective when the sheet is below the peek translation.
+	 */
+	float applyJello(float newTranslation) {
+		final float peekSheetTranslation = geometry.peekTranslation;
+		if (newTranslation < peekSheetTranslation) {
+			return peekSheetTranslation - (peekSheetTranslation - newTranslation) / JELLO_DAMPING;
+		}
+		return newTranslation;
+	}
+
+	/**
+	 * Go to a new state depending on velocity when touch is released.
+	 * Target is the detent nearest to where the sheet would stop if it kept moving with the velocity and decelerated,
+	 * and a fling always moves the sheet at least to next detent in its direction.
+	 * Target translation is stored in `settleTranslation`.
+	 *
+	 * @param releasedTranslation Translation at the time touch was released.
+	 * @param velocityY Vertical velocity of the touch in pixels per second.
+	 */
+	int chooseSettle(float releasedTranslation, float velocityY) {
+		final MySheetGeometry geometry = this.geometry;
+		if (releasedTranslation < geometry.peekTranslation) {
+			return SETTLE_DISMISS;
+		}
+		final float[] detents = geometry.detents;
+
+		// Translation is counted from the bottom, so it moves opposite to the finger
+		final float velocity = -velocityY;
+		final float projected = releasedTranslation + velocity / 1000f * PROJECTION_DECELERATION_RATE / (1 - PROJECTION_DECELERATION_RATE);
+		int index = geometry.nearestDetentIndex(projected);
+
+		if (Math.abs(velocityY) >= minFlingVelocity) {
+			final int releasedIndex = geometry.nearestDetentIndex(releasedTranslation);
+			if (velocity > 0 && index <= releasedIndex && detents[releasedIndex] <= releasedTranslation) {
+				index = Math.min(releasedIndex + 1, detents.length - 1);
+			}
+			else if (velocity < 0 && index >= releasedIndex && detents[releasedIndex] >= releasedTranslation) {
+				index = Math.max(releasedIndex - 1, 0);
+			}
+		}
+		return settleAt(index);
+	}
+
+	/**
+	 * If touch is canceled, go back to previous state, a canceled touch should never commit an action.
+	 */
+	int chooseCancelSettle() {
+		return settleAt(downState == STATE_EXPANDED ? geometry.detents.length - 1 : geometry.nearestDetentIndex(downSheetTranslation));
+	}
+
+	private int settleAt(int detentIndex) {
+		final float[] detents = geometry.detents;
+		this.settleTranslation = detents[detentIndex];
+		return detentIndex == detents.length - 1 ? SETTLE_EXPAND : SETTLE_PEEK;
+	}
+}
@@ -0,0 +1,147 @@
+package tool.compet.bottomsheet;
+
+import android.view.Choreographer;
+
+/**
+ * Delivers progress and state of the sheet to subscribers at most once per vsync.
+ * Changes between two frames (input events, state flips) are coalesced into the latest value,
+ * so cost of subscribers is bounded by frame rate instead of input rate.
+ *
+ * Each subscriber can limit its own delivery rate, skipped values are delivered later when its interval
+ * has elapsed, and state changes or the settled value are never lost.
+ * Optional hysteresis keeps reported state at EXPANDED until the sheet moves away from the top
+ * by a distance, so dragging around the boundary does not make reported state flap.
+ *
+ * This class must be used on main thread.
+ */
+final class MySheetProgressDispatcher implements Choreographer.FrameCallback {
+	static final class Subscription {
+		final MyBackgroundLayout.OnSheetProgressListener listener;
+		final long minIntervalNanos;
+		long lastDeliveryNanos;
+		int deliveredVersion = -1;
+		int deliveredState = -1;
+
+		Subscription(MyBackgroundLayout.OnSheetProgressListener listener, long minIntervalNanos) {
+			this.listener = listener;
+			this.minIntervalNanos = minIntervalNanos;
+		}
+	}
+
+	private static final MyBackgroundLayout.State[] STATES = MyBackgroundLayout.State.values();
+
+	private final MyListenerRegistry<Subscription> subscriptions = new MyListenerRegistry<>(new Subscription[0]);
+
+	// Latest value, version is increased at each change
+	private float translation;
+	private float progress;
+	private int state = MySheetMotion.STATE_HIDDEN;
+	private int version;
+
+	// Reported state after hysteresis
+	private int reportedState = MySheetMotion.STATE_HIDDEN;
+	private float hysteresis;
+	private float maxTranslation;
+	private boolean settled;
+
+	private boolean frameScheduled;
+
+	void subscribe(MyBackgroundLayout.OnSheetProgressListener listener, int maxRateHz) {
+		unsubscribe(listener);
+		subscriptions.add(new Subscription(listener, maxRateHz > 0 ? 1_000_000_000L / maxRateHz : 0));
+	}
+
+	void unsubscribe(MyBackgroundLayout.OnSheetProgressListener listener) {
+		for (Subscription subscription : subscriptions.snapshot()) {
+			if (subscription.listener == listener) {
+				subscriptions.remove(subscription);
+			}
+		}
+	}
+
+	void clear() {
+		subscriptions.clear();
+		cancel();
+	}
+
+	/**
+	 * @param hysteresis Distance in pixels which the sheet must move away from the top before
+	 * reported state goes from EXPANDED to PEEKED, 0 to disable.
+	 */
+	void setHysteresis(float hysteresis) {
+		this.hysteresis = hysteresis;
+	}
+
+	/**
+	 * Called at each change of translation or state, only remembers the latest value.
+	 *
+	 * @param settled true if the sheet has stopped, reported state must be the actual state.
+	 */
+	void onChanged(float translation, float maxTranslation, int state, boolean settled) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		this.translation = translation;
+		this.maxTranslation = maxTranslation;
+		this.progress = maxTranslation > 0 ? translation / maxTranslation : 0;
+		this.state = state;
+		this.settled = settled;
+		++this.version;
+
+		schedule();
+	}
+
+	void cancel() {
+		if (frameScheduled) {
+			frameScheduled = false;
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		this.frameScheduled = false;
+
+		final int reportedState = this.reportedState = reportState();
+		final MyBackgroundLayout.State stateValue = STATES[reportedState];
+		final int version = this.version;
+		boolean hasPending = false;
+
+		for (Subscription subscription : subscriptions.snapshot()) {
+			if (subscription.deliveredVersion == version) {
+				continue;
+			}
+			final boolean stateChanged = subscription.deliveredState != reportedState;
+			if (stateChanged || settled || frameTimeNanos - subscription.lastDeliveryNanos >= subscription.minIntervalNanos) {
+				subscription.deliveredVersion = version;
+				subscription.deliveredState = reportedState;
+				subscription.lastDeliveryNanos = frameTimeNanos;
+				subscription.listener.onSheetProgress(translation, progress, stateValue);
+			}
+			else {
+				hasPending = true;
+			}
+		}
+		// Deliver skipped value at a later frame
+		if (hasPending) {
+			schedule();
+		}
+	}
+
+	private int reportState() {
+		final int state = this.state;
+		if (! settled && hysteresis > 0
+			&& reportedState == MySheetMotion.STATE_EXPANDED && state == MySheetMotion.STATE_PEEKED
+			&& translation > maxTranslation - hysteresis) {
+			return MySheetMotion.STATE_EXPANDED;
+		}
+		return state;
+	}
+
+	private void schedule() {
+		if (! frameScheduled) {
+			frameScheduled = true;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package tool.compet.bottomsheet;
+
+/**
+ * Damped spring which settles the sheet translation. It starts from the release velocity of the finger,
+ * can be retargeted while running without losing its velocity, and the time it takes to settle comes
+ * from physics instead of a fixed duration: a fast fling or a tiny nudge settles quickly.
+ *
+ * The spring is solved analytically per step (same as androidx SpringForce does), so a long frame
+ * does not make it unstable. It is stepped by the host at each frame.
+ *
+ * Note: this file must not use any Android class since it is also compiled by the `jmh` benchmark build.
+ */
+class MySheetSpring {
+	// Stiffness of the spring, higher value makes the sheet settle faster
+	static final float DEFAULT_STIFFNESS = 800f;
+
+	// Critical damping: fastest settle without bouncing
+	static final float DEFAULT_DAMPING_RATIO = 1f;
+
+	// The spring is considered at rest when both displacement and velocity are under these thresholds
+	private static final float VALUE_THRESHOLD = 0.5f; // in pixels
+	private static final float VELOCITY_THRESHOLD = 20f; // in pixels per second
+
+	private double naturalFreq = Math.sqrt(DEFAULT_STIFFNESS);
+	private double dampingRatio = DEFAULT_DAMPING_RATIO;
+
+	// Current state of the spring
+	float value;
+	float velocity;
+	float target;
+	boolean running;
+
+	// Set by `DkBottomSheet.setSettleSpring()`
+	void setStiffness(float stiffness) {
+		this.naturalFreq = Math.sqrt(stiffness);
+	}
+
+	void setDampingRatio(float dampingRatio) {
+		this.dampingRatio = dampingRatio;
+	}
+
+	/**
+	 * Start the spring at given position and velocity toward given target.
+	 */
+	void start(float value, float velocity, float target) {
+		this.value = value;
+		this.velocity = velocity;
+		this.target = target;
+		this.running = true;
+	}
+
+	/**
+	 * Change target while running, current position and velocity are kept so motion stays continuous.
+	 */
+	void retarget(float target) {
+		this.target = target;
+	}
+
+	void stop() {
+		this.running = false;
+	}
+
+	/**
+	 * Advance the spring by given time.
+	 *
+	 * @param deltaSeconds Elapsed time since last step in seconds.
+	 * @return true if the spring is still running after this step, false if it has settled at target.
+	 */
+	boolean step(float deltaSeconds) {
+		if (! running) {
+			return false;
+		}
+
+		final double t = deltaSeconds;
+		final double w = naturalFreq;
+		final double z = dampingRatio;
+		final double lastDisplacement = value - target;
+		final double lastVelocity = velocity;
+		final double displacement;
+		final double currentVelocity;
+
+		if (z > 1) {
+			// Overdamped
+			final double gammaPlus = -z * w + w * Math.sqrt(z * z - 1);
+			final double gammaMinus = -z * w - w * Math.sqrt(z * z - 1);
+			final double coeffB = (gammaMinus * lastDisplacement - lastVelocity) / (gammaMinus - gammaPlus);
+			final double coeffA = lastDisplacement - coeffB;
+			final double expMinus = Math.exp(gammaMinus * t);
+			final double expPlus = Math.exp(gammaPlus * t);
+
+			displacement = coeffA * expMinus + coeffB * expPlus;
+			currentVelocity = coeffA * gammaMinus * expMinus + coeffB * gammaPlus * expPlus;
+		}
+		else if (z == 1) {
+			// Critically damped
+			final double coeffA = lastDisplacement;
+			final double coeffB = lastVelocity + w * lastDisplacement;
+			final double exp = Math.exp(-w * t);
+
+			displacement = (coeffA + coeffB * t) * exp;
+			currentVelocity = (coeffA + coeffB * t) * exp * -w + coeffB * exp;
+		}
+		else {
+			// Underdamped
+			final double dampedFreq = w * Math.sqrt(1 - z * z);
+			final double cosCoeff = lastDisplacement;
+			final double sinCoeff = (z * w * lastDisplacement + lastVelocity) / dampedFreq;
+			final double exp = Math.exp(-z * w * t);
+			final double cos = Math.cos(dampedFreq * t);
+			final double sin = Math.sin(dampedFreq * t);
+
+			displacement = exp * (cosCoeff * cos + sinCoeff * sin);
+			currentVelocity = displacement * -w * z + exp * (-dampedFreq * cosCoeff * sin + dampedFreq * sinCoeff * cos);
+		}
+
+		if (Math.abs(displacement) < VALUE_THRESHOLD && Math.abs(currentVelocity) < VELOCITY_THRESHOLD) {
+			this.value = target;
+			this.velocity = 0;
+			this.running = false;
+			return false;
+		}
+
+		this.value = (float) (target + displacement);
+		this.velocity = (float) currentVelocity;
+		return true;
+	}
+}
@@ -0,0 +1,120 @@
+package tool.compet.bottomsheet;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+/**
+ * Input stage of the sheet drag. It follows one active pointer: when another finger goes down it takes over
+ * the drag, and when the active finger goes up one of remaining fingers takes over. The position is continuous
+ * across pointer switches, so a second finger does not make the sheet jump.
+ *
+ * All batched historical samples of the active pointer are fed to velocity tracking and prediction.
+ * The velocity tracker is obtained lazily and must be recycled via `release()`.
+ */
+final class MySheetTouchInput {
+	private static final int INVALID_POINTER = -1;
+
+	private VelocityTracker velocityTracker;
+	private final MyTouchPredictor predictor = new MyTouchPredictor();
+
+	private int activePointerId = INVALID_POINTER;
+
+	// Added to position of the active pointer, so position does not jump when the active pointer is switched
+	private float offsetX;
+	private float offsetY;
+
+	// Position of the gesture at last event
+	float x;
+	float y;
+
+	/**
+	 * @param maxPredictionDistance Max distance in pixels which prediction can go beyond last position.
+	 */
+	void setMaxPredictionDistance(float maxPredictionDistance) {
+		this.predictor.maxDistance = maxPredictionDistance;
+	}
+
+	void onTouchEvent(MotionEvent event) {
+		if (velocityTracker == null) {
+			this.velocityTracker = VelocityTracker.obtain();
+		}
+		final int action = event.getActionMasked();
+
+		switch (action) {
+			case MotionEvent.ACTION_DOWN: {
+				this.activePointerId = event.getPointerId(0);
+				this.offsetX = 0;
+				this.offsetY = 0;
+				velocityTracker.clear();
+				predictor.reset();
+				break;
+			}
+			case MotionEvent.ACTION_POINTER_DOWN: {
+				// Newest finger takes over the drag
+				switchActivePointer(event, event.getActionIndex());
+				break;
+			}
+			case MotionEvent.ACTION_POINTER_UP: {
+				final int actionIndex = event.getActionIndex();
+				if (event.getPointerId(actionIndex) == activePointerId) {
+					switchActivePointer(event, actionIndex == 0 ? 1 : 0);
+				}
+				break;
+			}
+		}
+		velocityTracker.addMovement(event);
+
+		final int pointerIndex = event.findPointerIndex(activePointerId);
+		if (pointerIndex < 0) {
+			return;
+		}
+		final float offsetY = this.offsetY;
+		for (int historyIndex = 0, historySize = event.getHistorySize(); historyIndex < historySize; ++historyIndex) {
+			predictor.addSample(event.getHistoricalEventTime(historyIndex), event.getHistoricalY(pointerIndex, historyIndex) + offsetY);
+		}
+		predictor.addSample(event.getEventTime(), event.getY(pointerIndex) + offsetY);
+
+		this.x = event.getX(pointerIndex) + offsetX;
+		this.y = event.getY(pointerIndex) + offsetY;
+	}
+
+	/**
+	 * @return Predicted Y of the gesture after given duration from last event, or current Y if nothing is sampled.
+	 */
+	float predictY(float lookaheadMillis) {
+		final float predictedY = predictor.predict(lookaheadMillis);
+		return Float.isNaN(predictedY) ? y : predictedY;
+	}
+
+	/**
+	 * @return Y velocity of the active pointer in pixels per second.
+	 */
+	float computeYVelocity(int maxVelocity) {
+		if (velocityTracker == null) {
+			return 0;
+		}
+		velocityTracker.computeCurrentVelocity(1000, maxVelocity);
+		return velocityTracker.getYVelocity(activePointerId);
+	}
+
+	/**
+	 * Give back the native velocity tracker, a new one is obtained at next event.
+	 */
+	void release() {
+		if (velocityTracker != null) {
+			velocityTracker.recycle();
+			this.velocityTracker = null;
+		}
+		this.activePointerId = INVALID_POINTER;
+		predictor.reset();
+	}
+
+	private void switchActivePointer(MotionEvent event, int newPointerIndex) {
+		final int oldPointerIndex = event.findPointerIndex(activePointerId);
+		if (oldPointerIndex >= 0) {
+			this.offsetX += event.getX(oldPointerIndex) - event.getX(newPointerIndex);
+			this.offsetY += event.getY(oldPointerIndex) - event.getY(newPointerIndex);
+		}
+		this.activePointerId = event.getPointerId(newPointerIndex);
+	}
+}
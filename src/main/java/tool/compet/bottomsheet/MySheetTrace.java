@@ -0,0 +1,82 @@
+package tool.compet.bottomsheet;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * System trace (Perfetto, systrace) sections and counters of the sheet.
+ * Names are constants, so emitting does not allocate or format strings, and when tracing is off
+ * each call costs one volatile field read (the flag is also read by the inflater thread).
+ * End sections in a finally block, so an exception does not leave them unbalanced:
+ * <pre><code>
+ *    final boolean traced = MySheetTrace.begin(MySheetTrace.LAYOUT);
+ *    try {
+ *       ...
+ *    }
+ *    finally {
+ *       MySheetTrace.end(traced);
+ *    }
+ * </code></pre>
+ */
+final class MySheetTrace {
+	// Sections
+	static final String SHOW = "DkSheet#show";
+	static final String DISMISS = "DkSheet#dismiss";
+	static final String LAYOUT = "DkSheet#layout";
+	static final String TRANSLATE = "DkSheet#translate";
+	static final String SPRING_FRAME = "DkSheet#springFrame";
+	static final String INFLATE = "DkSheet#inflate";
+
+	// Async sections which span over frames (API 29+)
+	static final String SETTLE = "DkSheet#settle";
+
+	// Counters (API 29+)
+	static final String STATE = "DkSheet#state";
+	static final String TRANSLATION = "DkSheet#translation";
+
+	// Turned on via `DkBottomSheet.setTraceEnabled()`
+	static volatile boolean enabled;
+
+	/**
+	 * Begin a section if tracing is enabled.
+	 *
+	 * @return true if the section was begun, pass it to `end()` so sections are always balanced.
+	 */
+	static boolean begin(String sectionName) {
+		if (enabled && isTracing()) {
+			Trace.beginSection(sectionName);
+			return true;
+		}
+		return false;
+	}
+
+	static void end(boolean begun) {
+		if (begun) {
+			Trace.endSection();
+		}
+	}
+
+	static void beginAsync(String sectionName, int cookie) {
+		if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+			Trace.beginAsyncSection(sectionName, cookie);
+		}
+	}
+
+	static void endAsync(String sectionName, int cookie) {
+		// Ending a not begun async section is ignored by tracers
+		if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+			Trace.endAsyncSection(sectionName, cookie);
+		}
+	}
+
+	static void counter(String counterName, long value) {
+		if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled()) {
+			Trace.setCounter(counterName, value);
+		}
+	}
+
+	// Before Q we cannot ask the platform, sections are just ignored when nobody records them
+	private static boolean isTracing() {
+		return Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || Trace.isEnabled();
+	}
+}
@@ -0,0 +1,134 @@
+package tool.compet.bottomsheet;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import java.util.Arrays;
+
+/**
+ * Publishes the visible part of the sheet to views inside the sheet which implement
+ * `TheOnSheetViewportChangedListener`. Those views are collected once per layout epoch,
+ * and each dispatch only walks up from them to the sheet, so a sheet without such views costs nothing per frame.
+ * A view is notified only when its visible part has changed.
+ */
+final class MySheetViewportDispatcher {
+	private View[] views = new View[4];
+	private int[] dispatchedViewports = new int[4 * 3]; // top, bottom, width
+	private int count;
+	private View collectedSheetView;
+	private boolean dirty = true;
+
+	private final Rect viewport = new Rect();
+
+	/**
+	 * Called when the hierarchy inside the sheet has changed (layout happened), views are collected again at next dispatch.
+	 */
+	void invalidate() {
+		this.dirty = true;
+	}
+
+	/**
+	 * Drop all references to views of the sheet, for eg,. when the sheet is removed.
+	 */
+	void clear() {
+		Arrays.fill(views, 0, count, null);
+		this.count = 0;
+		this.collectedSheetView = null;
+		this.dirty = true;
+	}
+
+	/**
+	 * @param visibleHeight Height of the sheet from its top which is visible.
+	 */
+	void dispatch(View sheetView, float visibleHeight) {
+		if (sheetView == null) {
+			return;
+		}
+		if (dirty || collectedSheetView != sheetView) {
+			collectFrom(sheetView);
+		}
+		final int visibleBottom = (int) Math.ceil(Math.min(visibleHeight, sheetView.getHeight()));
+		final int[] dispatchedViewports = this.dispatchedViewports;
+		final Rect viewport = this.viewport;
+
+		for (int index = 0; index < count; ++index) {
+			final View view = views[index];
+			final int top = getTopInSheet(view, sheetView);
+			if (top == Integer.MIN_VALUE) {
+				continue;
+			}
+			final int height = view.getHeight();
+			final int visibleTop = Math.max(0, Math.min(height, -top));
+			final int bottom = Math.max(0, Math.min(height, visibleBottom - top));
+
+			if (bottom > visibleTop) {
+				viewport.set(0, visibleTop, view.getWidth(), bottom);
+			}
+			else {
+				viewport.setEmpty();
+			}
+
+			final int offset = index * 3;
+			if (dispatchedViewports[offset] != viewport.top
+				|| dispatchedViewports[offset + 1] != viewport.bottom
+				|| dispatchedViewports[offset + 2] != viewport.right) {
+
+				dispatchedViewports[offset] = viewport.top;
+				dispatchedViewports[offset + 1] = viewport.bottom;
+				dispatchedViewports[offset + 2] = viewport.right;
+				((TheOnSheetViewportChangedListener) view).onSheetViewportChanged(viewport);
+			}
+		}
+	}
+
+	private void collectFrom(View sheetView) {
+		Arrays.fill(views, 0, count, null);
+		this.count = 0;
+		this.collectedSheetView = sheetView;
+		this.dirty = false;
+
+		collect(sheetView);
+	}
+
+	private void collect(View view) {
+		if (view.getVisibility() != View.VISIBLE) {
+			return;
+		}
+		if (view instanceof TheOnSheetViewportChangedListener) {
+			final int index = count++;
+			if (index == views.length) {
+				this.views = Arrays.copyOf(views, index << 1);
+				this.dispatchedViewports = Arrays.copyOf(dispatchedViewports, index * 6);
+			}
+			views[index] = view;
+
+			// Not dispatched yet, so first dispatch always notifies
+			Arrays.fill(dispatchedViewports, index * 3, index * 3 + 3, -1);
+		}
+		if (view instanceof ViewGroup) {
+			final ViewGroup layout = (ViewGroup) view;
+			for (int index = 0, childCount = layout.getChildCount(); index < childCount; ++index) {
+				collect(layout.getChildAt(index));
+			}
+		}
+	}
+
+	/**
+	 * @return Top of given view in sheet coordinates, or `Integer.MIN_VALUE` if it is not inside the sheet anymore.
+	 */
+	private static int getTopInSheet(View view, View sheetView) {
+		int top = 0;
+		while (view != sheetView) {
+			top += view.getTop();
+			final ViewParent parent = view.getParent();
+			if (! (parent instanceof View)) {
+				return Integer.MIN_VALUE;
+			}
+			view = (View) parent;
+			top -= view.getScrollY();
+		}
+		return top;
+	}
+}
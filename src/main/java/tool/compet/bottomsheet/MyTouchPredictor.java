@@ -0,0 +1,93 @@
+package tool.compet.bottomsheet;
+
+/**
+ * Predicts where the finger will be a bit later from its recent samples (historical samples included),
+ * so the sheet can be drawn under where the finger is when the frame is shown instead of trailing it.
+ *
+ * Velocity is the least squares slope of samples in a short window, only recent samples are used since
+ * older ones describe a movement which may have changed. Prediction distance is capped to avoid overshoot
+ * at sudden stops.
+ *
+ * Note: this file must not use any Android class since it is also compiled by the `jmh` benchmark build.
+ */
+final class MyTouchPredictor {
+	private static final int SAMPLE_COUNT = 8;
+
+	// Samples older than this (from the newest one) are not used
+	private static final long WINDOW_MILLIS = 40;
+
+	// Ring of recent samples
+	private final long[] times = new long[SAMPLE_COUNT];
+	private final float[] positions = new float[SAMPLE_COUNT];
+	private int head = -1;
+	private int count;
+
+	// Max distance in pixels between the newest sample and the prediction
+	float maxDistance;
+
+	void reset() {
+		this.head = -1;
+		this.count = 0;
+	}
+
+	void addSample(long timeMillis, float position) {
+		final int head = this.head = (this.head + 1) % SAMPLE_COUNT;
+		times[head] = timeMillis;
+		positions[head] = position;
+		if (count < SAMPLE_COUNT) {
+			++count;
+		}
+	}
+
+	/**
+	 * @return Position after given duration from the newest sample, the newest position if velocity is not known,
+	 * or NaN if there is no sample.
+	 */
+	float predict(float lookaheadMillis) {
+		if (count == 0) {
+			return Float.NaN;
+		}
+		final float maxDistance = this.maxDistance;
+		final float distance = Math.max(-maxDistance, Math.min(maxDistance, velocity() * lookaheadMillis));
+		return positions[head] + distance;
+	}
+
+	/**
+	 * @return Velocity in pixels per millisecond.
+	 */
+	float velocity() {
+		final long[] times = this.times;
+		final float[] positions = this.positions;
+		final long newestTime = times[head];
+
+		// Mean of samples in the window, time is relative to the newest sample
+		int sampleCount = 0;
+		float timeSum = 0;
+		float positionSum = 0;
+		for (int index = 0; index < count; ++index) {
+			final int sample = (head - index + SAMPLE_COUNT) % SAMPLE_COUNT;
+			final long time = times[sample] - newestTime;
+			if (time < -WINDOW_MILLIS) {
+				break;
+			}
+			timeSum += time;
+			positionSum += positions[sample];
+			++sampleCount;
+		}
+		if (sampleCount < 2) {
+			return 0;
+		}
+		final float timeMean = timeSum / sampleCount;
+		final float positionMean = positionSum / sampleCount;
+
+		float covariance = 0;
+		float variance = 0;
+		for (int index = 0; index < sampleCount; ++index) {
+			final int sample = (head - index + SAMPLE_COUNT) % SAMPLE_COUNT;
+			final float time = times[sample] - newestTime - timeMean;
+			covariance += time * (positions[sample] - positionMean);
+			variance += time * time;
+		}
+		return variance == 0 ? 0 : covariance / variance;
+	}
+}
@@ -11,19 +11,19 @@ interface MyViewTransformer {
 	 * @param maxTranslation    The max translation of the presented sheet view.
 	 * @param peekedTranslation The peeked state translation of the presented sheet view.
 	 * @param parent            The BottomSheet presenting the sheet view.
-	 * @param view              The content view to transform.
+	 * @param view              The presented sheet view.
 	 */
 	void transformView(float translation, float maxTranslation, float peekedTranslation, MyBackgroundLayout parent, View view);
 
 	/**
 	 * Called on when the translation of the sheet view changes allowing you to customize the amount of dimming which
-	 * is applied to the content view.
+	 * is applied to the region which is not covered by the sheet view.
 	 *
 	 * @param translation       The current translation of the presented sheet view.
 	 * @param maxTranslation    The max translation of the presented sheet view.
 	 * @param peekedTranslation The peeked state translation of the presented sheet view.
 	 * @param parent            The BottomSheet presenting the sheet view.
-	 * @param view              The content view to transform.
+	 * @param view              The presented sheet view.
 	 * @return The alpha to apply to the dim overlay.
 	 */
 	float getDimAlpha(float translation, float maxTranslation, float peekedTranslation, MyBackgroundLayout parent, View view);
@@ -0,0 +1,33 @@
+package tool.compet.bottomsheet;
+
+/**
+ * Platform-free math of a list which is the sheet itself (see `MyViewportLayoutManager`):
+ * how much of the list is below the screen edge, and how far rows are laid out ahead of the sheet growth.
+ */
+final class MyViewportExtents {
+	private MyViewportExtents() {
+	}
+
+	/**
+	 * @param listHeight Height of the list.
+	 * @param paddingBottom Own bottom padding of the list.
+	 * @param viewportHeight Visible height of the sheet.
+	 * @return Height of bottom part of the list which is below the screen edge, it never covers
+	 * own bottom padding of the list, and is 0 when whole list is visible.
+	 */
+	static int hiddenExtent(int listHeight, int paddingBottom, float viewportHeight) {
+		final int visibleHeight = (int) Math.ceil(viewportHeight);
+		return Math.max(0, Math.min(listHeight - paddingBottom, listHeight - visibleHeight));
+	}
+
+	/**
+	 * @param hiddenExtent Hidden extent after the sheet has moved.
+	 * @param growth How much the visible part has grown since last move (negative if shrunk).
+	 * @param prefetchFrames Number of frames which rows are laid out ahead.
+	 * @return Extra height to lay out under the visible part, 0 if the sheet did not grow.
+	 * It never exceeds the hidden extent, so rows are not laid out below the list.
+	 */
+	static int prefetchExtent(int hiddenExtent, int growth, int prefetchFrames) {
+		return growth > 0 ? Math.min(hiddenExtent, growth * prefetchFrames) : 0;
+	}
+}
@@ -0,0 +1,220 @@
+package tool.compet.bottomsheet;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Vertical layout manager of a list which is the sheet itself. The list wraps its rows, but rows are only
+ * measured up to the visible height of the sheet (or the peek height of a tall sheet): a longer list is taken
+ * as full height without measuring the rest. Measured height is kept until the adapter data or list width changes.
+ * Rows are only laid out (so bound) for the part of the sheet which is visible: at each layout, the part below
+ * the screen edge is added to bottom padding of the list. When the sheet grows, rows of the new visible part
+ * are laid out, plus a lookahead in step with the growth, so rows are bound one or two frames before
+ * they come into view. When the sheet shrinks nothing is laid out, rows below the edge are recycled
+ * by next scroll.
+ */
+final class MyViewportLayoutManager extends LinearLayoutManager {
+	// Rows are laid out ahead of the sheet growth by this number of frames
+	private static final int PREFETCH_FRAMES = 2;
+
+	private final MyBackgroundLayout host;
+	private final RecyclerView recyclerView;
+
+	// Height of bottom part of the list which is below the screen edge
+	private int hiddenExtent;
+
+	// Hidden extent which is added to bottom padding of the list, and that padding, since last layout
+	private int appliedHiddenExtent;
+	private int appliedPaddingBottom;
+
+	// Extra height which is laid out under the visible part while the sheet grows
+	private int prefetchExtent;
+
+	// Last measured content height (Integer.MAX_VALUE if the list is taken as full height),
+	// and width which it was measured for, -1 if not measured
+	private int measuredContentHeight = -1;
+	private int measuredContentWidth;
+	private final Rect rowDecorInsets = new Rect();
+
+	MyViewportLayoutManager(Context context, MyBackgroundLayout host, RecyclerView recyclerView) {
+		super(context, RecyclerView.VERTICAL, false);
+		this.host = host;
+		this.recyclerView = recyclerView;
+	}
+
+	/**
+	 * Called when the sheet has moved or its state has changed. Request layout only if the grown visible part
+	 * (with lookahead) has no row yet, or if whole list has become visible while its padding still hides a part
+	 * (the list may scroll from now on, so its padding must be its own).
+	 */
+	void onViewportChanged() {
+		final int lastHiddenExtent = this.hiddenExtent;
+		final int hiddenExtent = updateHiddenExtent();
+		final int growth = lastHiddenExtent - hiddenExtent;
+
+		this.prefetchExtent = MyViewportExtents.prefetchExtent(hiddenExtent, growth, PREFETCH_FRAMES);
+
+		if ((growth > 0 && ! isFilledTo(getHeight() - hiddenExtent + prefetchExtent))
+			|| (hiddenExtent == 0 && this.appliedHiddenExtent != 0)) {
+			requestLayout();
+		}
+	}
+
+	// region Measure
+
+	@Override
+	public boolean isAutoMeasureEnabled() {
+		// Auto measure would lay out rows for whole max height, here rows are only measured
+		return false;
+	}
+
+	@Override
+	public void onMeasure(@NonNull RecyclerView.Recycler recycler, @NonNull RecyclerView.State state, int widthSpec, int heightSpec) {
+		final int heightMode = View.MeasureSpec.getMode(heightSpec);
+		if (heightMode == View.MeasureSpec.EXACTLY) {
+			super.onMeasure(recycler, state, widthSpec, heightSpec);
+			return;
+		}
+		final int width = chooseSize(widthSpec, getPaddingLeft() + getPaddingRight(), getMinimumWidth());
+		final int maxHeight = heightMode == View.MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE : View.MeasureSpec.getSize(heightSpec);
+
+		// Content height is re-measured only if width or data has changed: a list which was taken as
+		// full height stays so while the sheet grows, so its height does not change under the finger
+		final int measureHeight = (int) Math.min(maxHeight, Math.ceil(host.getSheetMeasureHeight()));
+		if (this.measuredContentHeight < 0 || this.measuredContentWidth != width) {
+			this.measuredContentHeight = measureContentHeight(recycler, state, width, measureHeight);
+			this.measuredContentWidth = width;
+		}
+		// Without max height, a list taken as full height is as tall as rows were measured
+		final int fullHeight = heightMode == View.MeasureSpec.UNSPECIFIED ? measureHeight : maxHeight;
+		final int height = Math.max(getMinimumHeight(), Math.min(this.measuredContentHeight, fullHeight));
+		setMeasuredDimension(width, height);
+	}
+
+	/**
+	 * Measure rows in order until given height is reached, measured rows are given back to the recycler.
+	 *
+	 * @return Height of padding and measured rows, or Integer.MAX_VALUE if given height was reached
+	 * before all rows were measured (the list is taken as full height).
+	 */
+	private int measureContentHeight(RecyclerView.Recycler recycler, RecyclerView.State state, int width, int measureHeight) {
+		final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+		final int itemCount = state.getItemCount();
+		final Rect decorInsets = this.rowDecorInsets;
+
+		long height = getPaddingTop() + getOwnPaddingBottom();
+		for (int position = 0; position < itemCount; ++position) {
+			if (height >= measureHeight) {
+				return Integer.MAX_VALUE;
+			}
+			final View row = recycler.getViewForPosition(position);
+			final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) row.getLayoutParams();
+			calculateItemDecorationsForChild(row, decorInsets);
+
+			final int widthUsed = horizontalPadding + params.leftMargin + params.rightMargin + decorInsets.left + decorInsets.right;
+			final int heightUsed = params.topMargin + params.bottomMargin + decorInsets.top + decorInsets.bottom;
+			row.measure(
+				getChildMeasureSpec(width, View.MeasureSpec.EXACTLY, widthUsed, params.width, false),
+				getChildMeasureSpec(0, View.MeasureSpec.UNSPECIFIED, heightUsed, params.height, true));
+
+			height += row.getMeasuredHeight() + heightUsed;
+			recycler.recycleView(row);
+		}
+		return (int) Math.min(height, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void onAdapterChanged(@Nullable RecyclerView.Adapter oldAdapter, @Nullable RecyclerView.Adapter newAdapter) {
+		super.onAdapterChanged(oldAdapter, newAdapter);
+		this.measuredContentHeight = -1;
+	}
+
+	@Override
+	public void onItemsChanged(@NonNull RecyclerView recyclerView) {
+		this.measuredContentHeight = -1;
+	}
+
+	@Override
+	public void onItemsAdded(@NonNull RecyclerView recyclerView, int positionStart, int itemCount) {
+		this.measuredContentHeight = -1;
+	}
+
+	@Override
+	public void onItemsRemoved(@NonNull RecyclerView recyclerView, int positionStart, int itemCount) {
+		this.measuredContentHeight = -1;
+	}
+
+	@Override
+	public void onItemsUpdated(@NonNull RecyclerView recyclerView, int positionStart, int itemCount, @Nullable Object payload) {
+		this.measuredContentHeight = -1;
+	}
+
+	@Override
+	public void onItemsMoved(@NonNull RecyclerView recyclerView, int from, int to, int itemCount) {
+		this.measuredContentHeight = -1;
+	}
+
+	// endregion Measure
+
+	@Override
+	public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+		applyHiddenExtent();
+		super.onLayoutChildren(recycler, state);
+	}
+
+	/**
+	 * Add current hidden extent to bottom padding of the list, in place of the one which was added before.
+	 * It is called while the list lays out, where the list defers the layout request of padding change.
+	 */
+	private void applyHiddenExtent() {
+		final int ownPaddingBottom = getOwnPaddingBottom();
+		final int hiddenExtent = MyViewportExtents.hiddenExtent(getHeight(), ownPaddingBottom, host.getSheetViewportHeight());
+		final int paddingBottom = ownPaddingBottom + hiddenExtent;
+		final RecyclerView recyclerView = this.recyclerView;
+
+		if (recyclerView.getPaddingBottom() != paddingBottom) {
+			recyclerView.setPadding(recyclerView.getPaddingLeft(), recyclerView.getPaddingTop(), recyclerView.getPaddingRight(), paddingBottom);
+		}
+		this.hiddenExtent = this.appliedHiddenExtent = hiddenExtent;
+		this.appliedPaddingBottom = paddingBottom;
+	}
+
+	/**
+	 * @return Bottom padding of the list without the applied hidden extent. A padding which was set
+	 * by the app since last layout is own padding.
+	 */
+	private int getOwnPaddingBottom() {
+		final int paddingBottom = getPaddingBottom();
+		return paddingBottom == this.appliedPaddingBottom ? paddingBottom - this.appliedHiddenExtent : paddingBottom;
+	}
+
+	@Override
+	protected void calculateExtraLayoutSpace(@NonNull RecyclerView.State state, @NonNull int[] extraLayoutSpace) {
+		super.calculateExtraLayoutSpace(state, extraLayoutSpace);
+		extraLayoutSpace[1] = Math.max(extraLayoutSpace[1], prefetchExtent);
+	}
+
+	private int updateHiddenExtent() {
+		return this.hiddenExtent = MyViewportExtents.hiddenExtent(getHeight(), getOwnPaddingBottom(), host.getSheetViewportHeight());
+	}
+
+	/**
+	 * @return true if laid out rows reach given bottom, or there is no more row.
+	 */
+	private boolean isFilledTo(int bottom) {
+		final int childCount = getChildCount();
+		if (childCount == 0) {
+			return getItemCount() == 0;
+		}
+		final View lastChild = getChildAt(childCount - 1);
+		return lastChild == null
+			|| getDecoratedBottom(lastChild) >= bottom
+			|| getPosition(lastChild) == getItemCount() - 1;
+	}
+}
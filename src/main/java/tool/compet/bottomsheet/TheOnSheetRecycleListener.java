@@ -0,0 +1,18 @@
+package tool.compet.bottomsheet;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Resets a sheet view of a layout when it is given back to a `DkSheetPool`, so next show does not
+ * get state of last show, for eg,. scroll position, input text, checked or expanded items, listeners.
+ */
+public interface TheOnSheetRecycleListener {
+	/**
+	 * Called when given sheet view is about to be kept by the pool. It is detached from the window.
+	 *
+	 * @param sheetView The sheet view which was removed from its host.
+	 */
+	void onRecycleSheet(@NonNull View sheetView);
+}
@@ -0,0 +1,21 @@
+package tool.compet.bottomsheet;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Implemented by views inside the sheet which want to know which part of them is on screen,
+ * for eg,. a chart or a map can pause or skip drawing of the part below the screen edge while the sheet is PEEKED.
+ * Such views are found at each layout of the sheet.
+ */
+public interface TheOnSheetViewportChangedListener {
+	/**
+	 * Called when the visible part of this view has changed (the sheet moved, changed its state,
+	 * or content of the sheet was laid out or scrolled).
+	 *
+	 * @param viewport Visible part of this view in its own coordinates, empty if nothing is visible.
+	 * It is only valid during this call, copy it to keep.
+	 */
+	void onSheetViewportChanged(@NonNull Rect viewport);
+}
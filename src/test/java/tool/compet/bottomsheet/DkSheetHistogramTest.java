@@ -0,0 +1,92 @@
+package tool.compet.bottomsheet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DkSheetHistogramTest {
+	@Test
+	public void empty_reportsZero() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getMean(), 0);
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	@Test
+	public void smallValues_areExact() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		for (int value = 0; value < 16; ++value) {
+			histogram.record(value);
+		}
+		assertEquals(16, histogram.getCount());
+		assertEquals(7, histogram.getValueAtPercentile(50));
+		assertEquals(15, histogram.getValueAtPercentile(100));
+		assertEquals(7.5, histogram.getMean(), 1e-9);
+	}
+
+	@Test
+	public void largeValues_areWithinRelativeError() {
+		for (long value = 16; value < 10_000_000; value = value * 3 + 1) {
+			final DkSheetHistogram histogram = new DkSheetHistogram();
+			histogram.record(value);
+			histogram.record(value * 4);
+
+			final long percentile = histogram.getValueAtPercentile(50);
+			assertTrue(value + " -> " + percentile, percentile >= value && percentile <= value * 1.125);
+		}
+	}
+
+	@Test
+	public void percentile_isNotOverMax() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		histogram.record(1000);
+
+		assertEquals(1000, histogram.getValueAtPercentile(50));
+		assertEquals(1000, histogram.getMax());
+	}
+
+	@Test
+	public void negativeValue_isRecordedAsZero() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		histogram.record(-5);
+
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void maxLong_hasBucket() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		histogram.record(Long.MAX_VALUE);
+
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void exportPercentiles_fillsInOrder() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		for (int value = 1; value <= 10; ++value) {
+			histogram.record(value);
+		}
+		final long[] out = new long[3];
+		histogram.exportPercentiles(new double[] {10, 50, 90}, out);
+
+		assertArrayEquals(new long[] {1, 5, 9}, out);
+	}
+
+	@Test
+	public void reset_clearsEverything() {
+		final DkSheetHistogram histogram = new DkSheetHistogram();
+		histogram.record(100);
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+}
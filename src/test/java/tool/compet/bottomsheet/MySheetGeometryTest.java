@@ -0,0 +1,147 @@
+package tool.compet.bottomsheet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MySheetGeometryTest {
+	private static final int HOST_HEIGHT = 2000;
+	private static final float KEYLINE = 1000;
+	private static final int FULL = -1;
+
+	private static MySheetGeometry geometry(int sheetHeight, float peekHeight, int[] kinds, float[] values) {
+		return new MySheetGeometry(HOST_HEIGHT, 0, sheetHeight, KEYLINE, peekHeight, kinds, values);
+	}
+
+	private static MySheetGeometry geometry(float peekHeight, int[] kinds, float[] values) {
+		return geometry(FULL, peekHeight, kinds, values);
+	}
+
+	@Test
+	public void noDetents_restsAtKeylineAndMax() {
+		final MySheetGeometry geometry = geometry(0, MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+
+		assertEquals(2000, geometry.maxTranslation, 0);
+		assertEquals(1000, geometry.peekTranslation, 0);
+		assertArrayEquals(new float[] {1000, 2000}, geometry.detents, 0);
+	}
+
+	@Test
+	public void maxTranslation_excludesHostPaddingTop() {
+		final MySheetGeometry geometry = new MySheetGeometry(HOST_HEIGHT, 100, FULL, KEYLINE, 0,
+			MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+
+		assertEquals(1900, geometry.maxTranslation, 0);
+	}
+
+	@Test
+	public void noDetents_sheetShorterThanKeylineOnlyRestsAtItsHeight() {
+		final MySheetGeometry geometry = geometry(500, 0, MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+
+		assertEquals(500, geometry.maxTranslation, 0);
+		assertEquals(500, geometry.peekTranslation, 0);
+		assertArrayEquals(new float[] {500}, geometry.detents, 0);
+	}
+
+	@Test
+	public void noDetents_customPeekHeightOverridesKeyline() {
+		final MySheetGeometry geometry = geometry(300, MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+
+		assertEquals(300, geometry.peekTranslation, 0);
+		assertArrayEquals(new float[] {300, 2000}, geometry.detents, 0);
+	}
+
+	@Test
+	public void detents_areSortedAndDeduplicated() {
+		final MySheetGeometry geometry = geometry(0,
+			new int[] {MySheetGeometry.DETENT_PIXELS, MySheetGeometry.DETENT_FRACTION, MySheetGeometry.DETENT_FRACTION, MySheetGeometry.DETENT_PIXELS},
+			new float[] {1500, 0.5f, 0.25f, 1000});
+
+		assertArrayEquals(new float[] {500, 1000, 1500, 2000}, geometry.detents, 0);
+		assertEquals(500, geometry.peekTranslation, 0);
+	}
+
+	@Test
+	public void detents_outOfRangeAreIgnored() {
+		final MySheetGeometry geometry = geometry(0,
+			new int[] {MySheetGeometry.DETENT_PIXELS, MySheetGeometry.DETENT_PIXELS, MySheetGeometry.DETENT_PIXELS},
+			new float[] {0, 800, 2000});
+
+		assertArrayEquals(new float[] {800, 2000}, geometry.detents, 0);
+	}
+
+	@Test
+	public void detents_keepCustomPeekHeight() {
+		final MySheetGeometry geometry = geometry(300,
+			new int[] {MySheetGeometry.DETENT_FRACTION},
+			new float[] {0.5f});
+
+		assertArrayEquals(new float[] {300, 1000, 2000}, geometry.detents, 0);
+		assertEquals(300, geometry.peekTranslation, 0);
+	}
+
+	@Test
+	public void detents_allAtOrOverMaxFallBackToPeek() {
+		final MySheetGeometry geometry = geometry(0,
+			new int[] {MySheetGeometry.DETENT_PIXELS, MySheetGeometry.DETENT_FRACTION},
+			new float[] {2500, 1f});
+
+		assertArrayEquals(new float[] {1000, 2000}, geometry.detents, 0);
+	}
+
+	@Test
+	public void nearestDetentIndex_findsNearest() {
+		final MySheetGeometry geometry = geometry(0,
+			new int[] {MySheetGeometry.DETENT_FRACTION, MySheetGeometry.DETENT_FRACTION},
+			new float[] {0.25f, 0.5f});
+
+		assertEquals(0, geometry.nearestDetentIndex(-100));
+		assertEquals(0, geometry.nearestDetentIndex(600));
+		assertEquals(1, geometry.nearestDetentIndex(900));
+		assertEquals(2, geometry.nearestDetentIndex(1900));
+		assertEquals(2, geometry.nearestDetentIndex(5000));
+	}
+
+	@Test
+	public void nearestDetentIndex_tieGoesToLowerDetent() {
+		final MySheetGeometry geometry = geometry(0, MySheetGeometry.NO_DETENT_KINDS, MySheetGeometry.NO_DETENT_VALUES);
+
+		assertEquals(0, geometry.nearestDetentIndex(1500));
+		assertEquals(1, geometry.nearestDetentIndex(1500.5f));
+	}
+
+	@Test
+	public void isBuiltFrom_comparesAllLayoutValues() {
+		final int[] kinds = MySheetGeometry.NO_DETENT_KINDS;
+		final float[] values = MySheetGeometry.NO_DETENT_VALUES;
+		final MySheetGeometry geometry = geometry(0, kinds, values);
+
+		assertTrue(geometry.isBuiltFrom(HOST_HEIGHT, 0, FULL, KEYLINE, 0, kinds, values));
+		assertFalse(geometry.isBuiltFrom(HOST_HEIGHT, 0, 500, KEYLINE, 0, kinds, values));
+		assertFalse(geometry.isBuiltFrom(HOST_HEIGHT, 0, FULL, KEYLINE, 300, kinds, values));
+		assertFalse(geometry.isBuiltFrom(HOST_HEIGHT, 0, FULL, KEYLINE, 0, new int[0], values));
+	}
+
+	@Test
+	public void motion_rebuildsGeometryOnlyWhenLayoutChanges() {
+		final MySheetMotion motion = new MySheetMotion();
+		motion.setDefaultPeekKeyline(KEYLINE);
+		motion.setLayout(HOST_HEIGHT, 0, FULL);
+		final MySheetGeometry geometry = motion.geometry;
+
+		motion.setLayout(HOST_HEIGHT, 0, FULL);
+		motion.setDefaultPeekKeyline(KEYLINE);
+		motion.setPeekHeight(0);
+		motion.setDetents(geometry.detentKinds, geometry.detentValues);
+		assertSame(geometry, motion.geometry);
+
+		motion.setLayout(HOST_HEIGHT, 0, 500);
+		assertNotSame(geometry, motion.geometry);
+		assertEquals(500, motion.getMaxSheetTranslation(), 0);
+	}
+}
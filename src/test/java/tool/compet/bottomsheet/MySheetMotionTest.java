@@ -0,0 +1,192 @@
+package tool.compet.bottomsheet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MySheetMotionTest {
+	private MySheetMotion motion;
+
+	@Before
+	public void setUp() {
+		motion = new MySheetMotion();
+		motion.minFlingVelocity = 100;
+		motion.touchSlop = 10;
+		motion.setDefaultPeekKeyline(1000);
+		motion.setLayout(2000, 0, -1);
+	}
+
+	/**
+	 * Detents at 500, 1000, 1500 and 2000 (max).
+	 */
+	private void setQuarterDetents() {
+		motion.setDetents(
+			new int[] {MySheetGeometry.DETENT_FRACTION, MySheetGeometry.DETENT_FRACTION, MySheetGeometry.DETENT_FRACTION},
+			new float[] {0.25f, 0.5f, 0.75f});
+	}
+
+	@Test
+	public void peekTranslation_isKeylineOrCustomPeek() {
+		assertEquals(1000, motion.getPeekSheetTranslation(), 0);
+
+		motion.setPeekHeight(300);
+		assertEquals(300, motion.getPeekSheetTranslation(), 0);
+	}
+
+	@Test
+	public void sheetShorterThanKeyline_peeksAtItsHeight() {
+		motion.setLayout(2000, 0, 500);
+
+		assertEquals(500, motion.getMaxSheetTranslation(), 0);
+		assertEquals(500, motion.getPeekSheetTranslation(), 0);
+	}
+
+	@Test
+	public void releaseUnderPeek_dismisses() {
+		assertEquals(MySheetMotion.SETTLE_DISMISS, motion.chooseSettle(400, 0));
+
+		setQuarterDetents();
+		assertEquals(MySheetMotion.SETTLE_DISMISS, motion.chooseSettle(400, 0));
+	}
+
+	@Test
+	public void noDetents_slowReleaseSettlesAtNearestOfPeekAndMax() {
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1400, 0));
+		assertEquals(1000, motion.settleTranslation, 0);
+
+		assertEquals(MySheetMotion.SETTLE_EXPAND, motion.chooseSettle(1600, 0));
+		assertEquals(2000, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void noDetents_flingSettlesByDirection() {
+		assertEquals(MySheetMotion.SETTLE_EXPAND, motion.chooseSettle(1200, -500));
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1800, 500));
+	}
+
+	@Test
+	public void slowRelease_settlesAtNearestDetent() {
+		setQuarterDetents();
+
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1200, 0));
+		assertEquals(1000, motion.settleTranslation, 0);
+
+		assertEquals(MySheetMotion.SETTLE_EXPAND, motion.chooseSettle(1800, 0));
+		assertEquals(2000, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void velocityUnderMinFling_onlyProjects() {
+		setQuarterDetents();
+
+		// Projected 25 px further, still nearest to released detent
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1000, -50));
+		assertEquals(1000, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void slowFling_goesToNextDetent() {
+		setQuarterDetents();
+
+		// Projected only 75 px up, but a fling always leaves the released detent
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1000, -150));
+		assertEquals(1500, motion.settleTranslation, 0);
+
+		// Same downward
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(1500, 150));
+		assertEquals(1000, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void fastFling_goesOverDetents() {
+		setQuarterDetents();
+
+		// Projected about 1500 px up, from the lowest detent to the max
+		assertEquals(MySheetMotion.SETTLE_EXPAND, motion.chooseSettle(500, -3000));
+		assertEquals(2000, motion.settleTranslation, 0);
+
+		// Projected about 750 px up, over one detent
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(700, -1500));
+		assertEquals(1500, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void downwardFlingFromLowestDetent_staysAtLowestDetent() {
+		setQuarterDetents();
+
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseSettle(500, 150));
+		assertEquals(500, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void canceledTouch_goesBackToDownState() {
+		motion.state = MySheetMotion.STATE_EXPANDED;
+		motion.onDown(0, 0);
+		assertEquals(MySheetMotion.SETTLE_EXPAND, motion.chooseCancelSettle());
+
+		motion.state = MySheetMotion.STATE_PEEKED;
+		motion.onDown(0, 0);
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseCancelSettle());
+	}
+
+	@Test
+	public void canceledTouch_goesBackToDownDetent() {
+		setQuarterDetents();
+		motion.state = MySheetMotion.STATE_PEEKED;
+		motion.sheetTranslation = 1000;
+		motion.onDown(0, 0);
+
+		assertEquals(MySheetMotion.SETTLE_PEEK, motion.chooseCancelSettle());
+		assertEquals(1000, motion.settleTranslation, 0);
+	}
+
+	@Test
+	public void verticalMoveOverSlop_claimsTouch() {
+		motion.onDown(0, 1000);
+
+		assertFalse(motion.claimTouch(0, 995));
+		assertTrue(motion.claimTouch(0, 980));
+		assertTrue(motion.bottomSheetOwnsTouch);
+
+		// Already claimed
+		assertFalse(motion.claimTouch(0, 900));
+	}
+
+	@Test
+	public void horizontalMoveOverSlop_leavesTouchToSheetView() {
+		motion.onDown(0, 1000);
+
+		assertFalse(motion.claimTouch(20, 1000));
+		assertTrue(motion.sheetViewOwnsTouch);
+		assertFalse(motion.bottomSheetOwnsTouch);
+	}
+
+	@Test
+	public void dragTranslation_followsTouchFromDown() {
+		motion.sheetTranslation = 1000;
+		motion.onDown(0, 1000);
+
+		assertEquals(1300, motion.dragTranslation(700), 0);
+		assertEquals(900, motion.dragTranslation(1100), 0);
+	}
+
+	@Test
+	public void translate_isLimitedByMax() {
+		assertEquals(2000, motion.translate(2300), 0);
+		assertEquals(2000, motion.sheetTranslation, 0);
+	}
+
+	@Test
+	public void jello_dampsDragUnderPeek() {
+		assertEquals(775, motion.applyJello(100), 0);
+		assertEquals(1200, motion.applyJello(1200), 0);
+
+		// Lowest detent plays the role of peek
+		setQuarterDetents();
+		assertEquals(400, motion.applyJello(100), 0);
+		assertEquals(800, motion.applyJello(800), 0);
+	}
+}
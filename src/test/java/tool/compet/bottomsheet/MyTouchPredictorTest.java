@@ -0,0 +1,75 @@
+package tool.compet.bottomsheet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MyTouchPredictorTest {
+	private MyTouchPredictor predictor;
+
+	@Before
+	public void setUp() {
+		predictor = new MyTouchPredictor();
+		predictor.maxDistance = 100;
+	}
+
+	@Test
+	public void noSample_predictsNaN() {
+		assertTrue(Float.isNaN(predictor.predict(16)));
+
+		predictor.addSample(0, 10);
+		predictor.reset();
+		assertTrue(Float.isNaN(predictor.predict(16)));
+	}
+
+	@Test
+	public void oneSample_predictsItsPosition() {
+		predictor.addSample(0, 10);
+		assertEquals(10, predictor.predict(16), 0);
+	}
+
+	@Test
+	public void constantVelocity_isExtrapolated() {
+		for (int time = 0; time <= 35; time += 5) {
+			predictor.addSample(time, 2 * time);
+		}
+		assertEquals(2, predictor.velocity(), 1e-4);
+		assertEquals(90, predictor.predict(10), 1e-3);
+	}
+
+	@Test
+	public void prediction_isCappedByMaxDistance() {
+		predictor.maxDistance = 5;
+		for (int time = 0; time <= 35; time += 5) {
+			predictor.addSample(time, 2 * time);
+		}
+		assertEquals(75, predictor.predict(10), 1e-3);
+
+		// Same cap in opposite direction
+		predictor.reset();
+		for (int time = 0; time <= 35; time += 5) {
+			predictor.addSample(time, -2 * time);
+		}
+		assertEquals(-75, predictor.predict(10), 1e-3);
+	}
+
+	@Test
+	public void samplesOutOfWindow_areIgnored() {
+		predictor.addSample(0, 0);
+		predictor.addSample(100, 500);
+		predictor.addSample(200, 0);
+		predictor.addSample(210, 10);
+
+		assertEquals(1, predictor.velocity(), 1e-4);
+	}
+
+	@Test
+	public void ringOfSamples_keepsNewestOnes() {
+		for (int time = 0; time < 100; time += 4) {
+			predictor.addSample(time, time < 60 ? 0 : 3 * time);
+		}
+		assertEquals(3, predictor.velocity(), 1e-4);
+	}
+}
@@ -0,0 +1,52 @@
+package tool.compet.bottomsheet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MyViewportExtentsTest {
+	@Test
+	public void hiddenExtent_isPartBelowViewport() {
+		assertEquals(600, MyViewportExtents.hiddenExtent(1000, 0, 400f));
+	}
+
+	@Test
+	public void hiddenExtent_roundsViewportUp() {
+		// Partly visible pixel row is visible
+		assertEquals(599, MyViewportExtents.hiddenExtent(1000, 0, 400.2f));
+	}
+
+	@Test
+	public void hiddenExtent_isZeroWhenWholeListIsVisible() {
+		assertEquals(0, MyViewportExtents.hiddenExtent(1000, 0, 1000f));
+		assertEquals(0, MyViewportExtents.hiddenExtent(1000, 0, 1200f));
+	}
+
+	@Test
+	public void hiddenExtent_neverCoversOwnPadding() {
+		assertEquals(920, MyViewportExtents.hiddenExtent(1000, 80, 0f));
+		assertEquals(900, MyViewportExtents.hiddenExtent(1000, 80, 100f));
+	}
+
+	@Test
+	public void hiddenExtent_isZeroForUnmeasuredList() {
+		assertEquals(0, MyViewportExtents.hiddenExtent(0, 0, 0f));
+	}
+
+	@Test
+	public void prefetchExtent_followsGrowth() {
+		assertEquals(60, MyViewportExtents.prefetchExtent(500, 30, 2));
+	}
+
+	@Test
+	public void prefetchExtent_isCappedByHiddenExtent() {
+		assertEquals(40, MyViewportExtents.prefetchExtent(40, 30, 2));
+		assertEquals(0, MyViewportExtents.prefetchExtent(0, 30, 2));
+	}
+
+	@Test
+	public void prefetchExtent_isZeroWhenNotGrowing() {
+		assertEquals(0, MyViewportExtents.prefetchExtent(500, 0, 2));
+		assertEquals(0, MyViewportExtents.prefetchExtent(500, -30, 2));
+	}
+}